@@ -0,0 +1,98 @@
+package yieldanalysis;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+// BatchPricingKernel on the incubating Vector API: the closed-form price and derivative of
+// ScalarPricingKernel for a whole register of lanes (8 on AVX-512), with log1p, exp and expm1
+// taken lane-wise. The zero-rate and no-coupons cases are worked out for every lane and blended
+// in by mask, so there are no branches. The lanes past the last full vector go to the scalar
+// kernel.
+//
+// Only compiled and loaded with --add-modules jdk.incubator.vector; BatchPricingKernel falls
+// back to the scalar kernel without it.
+final class VectorPricingKernel extends BatchPricingKernel {
+
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+
+    private final VectorSpecies<Integer> ints;
+
+    VectorPricingKernel() {
+        if (DOUBLES.length() < 2) {
+            throw new IllegalStateException("No SIMD registers to price with.");
+        }
+        // Half the width, so the int lanes line up with the double lanes
+        ints = VectorSpecies.of(int.class, VectorShape.forBitSize(DOUBLES.vectorBitSize() / 2));
+    }
+
+    @Override
+    public void priceBonds(double[] faceValue, double[] couponRate, int[] couponFrequency, int[] periods,
+            double[] firstPeriod, double[] yields, double[] prices, double[] derivatives, int count) {
+        int j = 0;
+        for (int bound = DOUBLES.loopBound(count); j < bound; j += DOUBLES.length()) {
+            DoubleVector frequency = (DoubleVector) IntVector.fromArray(ints, couponFrequency, j)
+                    .convertShape(VectorOperators.I2D, DOUBLES, 0);
+            DoubleVector n = (DoubleVector) IntVector.fromArray(ints, periods, j)
+                    .convertShape(VectorOperators.I2D, DOUBLES, 0);
+            price(DoubleVector.fromArray(DOUBLES, faceValue, j), DoubleVector.fromArray(DOUBLES, couponRate, j), frequency, n,
+                    DoubleVector.fromArray(DOUBLES, firstPeriod, j), DoubleVector.fromArray(DOUBLES, yields, j), prices, derivatives, j);
+        }
+        ScalarPricingKernel.priceBonds(faceValue, couponRate, couponFrequency, periods, firstPeriod, yields, prices, derivatives, j, count);
+    }
+
+    @Override
+    public void priceYields(double faceValue, double couponRate, int couponFrequency, int n, double firstPeriod,
+            double[] yields, double[] prices, double[] derivatives, int count) {
+        DoubleVector face = DoubleVector.broadcast(DOUBLES, faceValue);
+        DoubleVector coupon = DoubleVector.broadcast(DOUBLES, couponRate);
+        DoubleVector frequency = DoubleVector.broadcast(DOUBLES, couponFrequency);
+        DoubleVector periods = DoubleVector.broadcast(DOUBLES, n);
+        DoubleVector first = DoubleVector.broadcast(DOUBLES, firstPeriod);
+        int j = 0;
+        for (int bound = DOUBLES.loopBound(count); j < bound; j += DOUBLES.length()) {
+            price(face, coupon, frequency, periods, first, DoubleVector.fromArray(DOUBLES, yields, j), prices, derivatives, j);
+        }
+        ScalarPricingKernel.priceYields(faceValue, couponRate, couponFrequency, n, firstPeriod, yields, prices, derivatives, j, count);
+    }
+
+    @Override
+    public String getName() {
+        return "vector (" + DOUBLES.length() + " lanes)";
+    }
+
+    private static void price(DoubleVector faceValue, DoubleVector couponRate, DoubleVector frequency, DoubleVector n,
+            DoubleVector firstPeriod, DoubleVector yields, double[] prices, double[] derivatives, int j) {
+        DoubleVector couponPayment = faceValue.mul(couponRate).div(frequency);
+        DoubleVector i = yields.div(frequency);
+        DoubleVector onePlusI = i.add(1.0);
+        DoubleVector logV = i.lanewise(VectorOperators.LOG1P).neg();
+        DoubleVector nLogV = n.mul(logV);
+
+        DoubleVector vn = nLogV.lanewise(VectorOperators.EXP);
+        DoubleVector oneMinusVn = nLogV.lanewise(VectorOperators.EXPM1).neg();
+        DoubleVector vn1 = vn.div(onePlusI);
+        DoubleVector price = couponPayment.mul(oneMinusVn).div(i).add(faceValue.mul(vn));
+        DoubleVector slope = couponPayment.mul(n.mul(vn1).div(i).sub(oneMinusVn.div(i.mul(i)))).sub(n.mul(faceValue).mul(vn1));
+
+        // The limit at i = 0
+        VectorMask<Double> zeroRate = i.abs().lt(ScalarPricingKernel.ZERO_RATE);
+        if (zeroRate.anyTrue()) {
+            price = price.blend(couponPayment.mul(n).add(faceValue), zeroRate);
+            slope = slope.blend(couponPayment.mul(n).mul(n.add(1.0)).mul(0.5).add(n.mul(faceValue)).neg(), zeroRate);
+        }
+
+        DoubleVector oneMinusFirst = firstPeriod.neg().add(1.0);
+        DoubleVector shift = oneMinusFirst.mul(logV).neg().lanewise(VectorOperators.EXP);
+        DoubleVector result = shift.mul(price);
+        VectorMask<Double> matured = n.compare(VectorOperators.LE, 0.0);
+        result.blend(faceValue, matured).intoArray(prices, j);
+        if (derivatives != null) {
+            DoubleVector derivative = shift.mul(slope.add(price.mul(oneMinusFirst).div(onePlusI))).div(frequency);
+            derivative.blend(0.0, matured).intoArray(derivatives, j);
+        }
+    }
+}
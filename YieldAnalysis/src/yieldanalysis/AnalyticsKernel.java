@@ -0,0 +1,54 @@
+package yieldanalysis;
+
+// Price, yield derivatives, durations and convexity of a level-coupon bond from a single walk
+// over its n cash flows. The discount factor is carried from one period to the next by one
+// multiplication, so there is no Math.pow in the loop and nothing is allocated. Between coupon
+// dates the first flow is firstPeriod periods away (see CashFlowSchedule) and the price is dirty.
+final class AnalyticsKernel {
+
+    private AnalyticsKernel() {
+    }
+
+    static void calculate(double faceValue, double couponRate, int couponFrequency, int n, double yieldToMaturity, AnalyticsResult result) {
+        calculate(faceValue, couponRate, couponFrequency, n, 1.0, yieldToMaturity, result);
+    }
+
+    static void calculate(double faceValue, double couponRate, int couponFrequency, int n, double firstPeriod, double yieldToMaturity, AnalyticsResult result) {
+        if (n <= 0) {
+            // Only the redemption is left and it is paid now
+            result.set(faceValue, 0.0, 0.0, 0.0);
+            return;
+        }
+
+        double couponPayment = faceValue * couponRate / couponFrequency;
+        double v = 1 / (1 + yieldToMaturity / couponFrequency);
+        // v^(firstPeriod - 1), so that the first multiplication by v lands on the first flow
+        double discountFactor = firstPeriod == 1.0 ? 1.0 : Math.exp((1 - firstPeriod) * Math.log1p(yieldToMaturity / couponFrequency));
+
+        // sum(PV), sum(t * PV) and sum(t * (t + 1) * PV) over the flows at t = firstPeriod + k - 1 periods
+        double presentValue = 0.0;
+        double timeWeighted = 0.0;
+        double convexityWeighted = 0.0;
+
+        double t = firstPeriod;
+        for (int k = 1; k < n; k++) {
+            discountFactor *= v;
+            double pv = couponPayment * discountFactor;
+            presentValue += pv;
+            timeWeighted += t * pv;
+            convexityWeighted += t * (t + 1.0) * pv;
+            t += 1.0;
+        }
+        discountFactor *= v;
+        double pv = (couponPayment + faceValue) * discountFactor;
+        presentValue += pv;
+        timeWeighted += t * pv;
+        convexityWeighted += t * (t + 1.0) * pv;
+
+        double firstDerivative = -v * timeWeighted / couponFrequency;
+        double secondDerivative = v * v * convexityWeighted / ((double) couponFrequency * couponFrequency);
+        double macaulayDuration = timeWeighted / (couponFrequency * presentValue);
+
+        result.set(presentValue, firstDerivative, secondDerivative, macaulayDuration);
+    }
+}
@@ -0,0 +1,58 @@
+package yieldanalysis;
+
+// Mutable holder for everything AnalyticsKernel produces in one pass over the cash flows.
+// Derivatives are taken with respect to the annual yield to maturity.
+public class AnalyticsResult {
+
+    private double price;
+    private double firstDerivative;
+    private double secondDerivative;
+    private double macaulayDuration;
+    private double modifiedDuration;
+    private double convexity;
+
+    void set(double price, double firstDerivative, double secondDerivative, double macaulayDuration) {
+        this.price = price;
+        this.firstDerivative = firstDerivative;
+        this.secondDerivative = secondDerivative;
+        this.macaulayDuration = macaulayDuration;
+        this.modifiedDuration = -firstDerivative / price;
+        this.convexity = secondDerivative / price;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+
+    public double getFirstDerivative() {
+        return firstDerivative;
+    }
+
+    public double getSecondDerivative() {
+        return secondDerivative;
+    }
+
+    public double getMacaulayDuration() {
+        return macaulayDuration;
+    }
+
+    public double getModifiedDuration() {
+        return modifiedDuration;
+    }
+
+    public double getConvexity() {
+        return convexity;
+    }
+
+    @Override
+    public String toString() {
+        return "AnalyticsResult{" +
+                "price=" + price +
+                ", firstDerivative=" + firstDerivative +
+                ", secondDerivative=" + secondDerivative +
+                ", macaulayDuration=" + macaulayDuration +
+                ", modifiedDuration=" + modifiedDuration +
+                ", convexity=" + convexity +
+                '}';
+    }
+}
@@ -0,0 +1,64 @@
+package yieldanalysis;
+
+// Closed-form price of a level-coupon bond and its first derivative with respect to the
+// annual yield, so that neither pricing nor the yield solver has to loop over the coupons.
+// y is the annual yield; i = y / couponFrequency is the periodic rate and n the number of periods.
+final class AnnuityFormula {
+
+    // Below this periodic rate the formulas are replaced by their limit at i = 0
+    private static final double ZERO_RATE = 1e-12;
+
+    private AnnuityFormula() {
+    }
+
+    // C * (1 - v^n) / i + F * v^n, with v = 1 / (1 + i)
+    static double price(double faceValue, double couponRate, int couponFrequency, int n, double yieldToMaturity) {
+        double couponPayment = faceValue * couponRate / couponFrequency;
+        double i = yieldToMaturity / couponFrequency;
+        if (Math.abs(i) < ZERO_RATE) {
+            return couponPayment * n + faceValue;
+        }
+        double logV = -Math.log1p(i);
+        double vn = Math.exp(n * logV);
+        // 1 - v^n, computed without cancellation for small i
+        double oneMinusVn = -Math.expm1(n * logV);
+        return couponPayment * oneMinusVn / i + faceValue * vn;
+    }
+
+    // dP/dy = (1 / f) * ( C * (n * v^(n+1) / i - (1 - v^n) / i^2) - n * F * v^(n+1) )
+    static double priceDerivative(double faceValue, double couponRate, int couponFrequency, int n, double yieldToMaturity) {
+        double couponPayment = faceValue * couponRate / couponFrequency;
+        double i = yieldToMaturity / couponFrequency;
+        if (Math.abs(i) < ZERO_RATE) {
+            return -(couponPayment * n * (n + 1) / 2.0 + n * faceValue) / couponFrequency;
+        }
+        double logV = -Math.log1p(i);
+        double vn1 = Math.exp((n + 1) * logV);
+        double oneMinusVn = -Math.expm1(n * logV);
+        double dPdi = couponPayment * (n * vn1 / i - oneMinusVn / (i * i)) - n * faceValue * vn1;
+        return dPdi / couponFrequency;
+    }
+
+    // Between coupon dates the first payment is firstPeriod (< 1) periods away and every flow is
+    // discounted for 1 - firstPeriod periods less, which scales the whole price by (1 + i)^(1 - firstPeriod).
+    // The result is the dirty price.
+    static double price(double faceValue, double couponRate, int couponFrequency, int n, double firstPeriod, double yieldToMaturity) {
+        double price = price(faceValue, couponRate, couponFrequency, n, yieldToMaturity);
+        if (firstPeriod == 1.0) {
+            return price;
+        }
+        return price * Math.exp((1 - firstPeriod) * Math.log1p(yieldToMaturity / couponFrequency));
+    }
+
+    // d/dy [s * P] = s * dP/dy + P * ds/dy, with s = (1 + i)^(1 - firstPeriod) and ds/dy = s * (1 - firstPeriod) / (f * (1 + i))
+    static double priceDerivative(double faceValue, double couponRate, int couponFrequency, int n, double firstPeriod, double yieldToMaturity) {
+        double derivative = priceDerivative(faceValue, couponRate, couponFrequency, n, yieldToMaturity);
+        if (firstPeriod == 1.0) {
+            return derivative;
+        }
+        double i = yieldToMaturity / couponFrequency;
+        double shift = Math.exp((1 - firstPeriod) * Math.log1p(i));
+        double price = price(faceValue, couponRate, couponFrequency, n, yieldToMaturity);
+        return shift * (derivative + price * (1 - firstPeriod) / (couponFrequency * (1 + i)));
+    }
+}
@@ -0,0 +1,49 @@
+package yieldanalysis;
+
+// Prices many bonds at once, each at its own yield, or one bond at many yields. Every lane
+// uses the closed-form annuity price, so its cost doesn't depend on the number of coupons.
+// Prices are dirty and derivatives are dP/dy, as in AnnuityFormula.
+//
+// getDefault() is the Vector API kernel (VectorPricingKernel, built from src-vector) when the
+// JVM runs with --add-modules jdk.incubator.vector and the CPU has SIMD registers, and the
+// scalar one otherwise; -Dpricing.vector=false always picks the scalar one.
+public abstract class BatchPricingKernel {
+
+    private static final BatchPricingKernel SCALAR = new ScalarPricingKernel();
+    private static final BatchPricingKernel DEFAULT = load();
+
+    public static BatchPricingKernel getDefault() {
+        return DEFAULT;
+    }
+
+    public static BatchPricingKernel scalar() {
+        return SCALAR;
+    }
+
+    private static BatchPricingKernel load() {
+        if ("false".equalsIgnoreCase(System.getProperty("pricing.vector"))) {
+            return SCALAR;
+        }
+        try {
+            return (BatchPricingKernel) Class.forName("yieldanalysis.VectorPricingKernel").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // Not built, the incubator module isn't loaded, or there is nothing to vectorize on
+            return SCALAR;
+        }
+    }
+
+    // Bond j (j < count) at yields[j]; derivatives may be null
+    public abstract void priceBonds(double[] faceValue, double[] couponRate, int[] couponFrequency, int[] periods,
+            double[] firstPeriod, double[] yields, double[] prices, double[] derivatives, int count);
+
+    // The same bond at each of the first count yields; derivatives may be null
+    public abstract void priceYields(double faceValue, double couponRate, int couponFrequency, int n, double firstPeriod,
+            double[] yields, double[] prices, double[] derivatives, int count);
+
+    public abstract String getName();
+
+    @Override
+    public String toString() {
+        return getName();
+    }
+}
@@ -0,0 +1,277 @@
+package yieldanalysis;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+public class Bond {
+	
+	private double faceValue;
+    private double couponRate;
+    private LocalDate maturityDate;
+    private int couponFrequency;
+    private String tenor;
+    private double treasuryYield;
+    private double bondSpread;
+    private LocalDate settlementDate;
+    private double macaulayDuration;
+    private double modifiedDuration;
+    private double convexity;
+    private double yieldToMaturity;
+    private double price;
+    private double accruedInterest;
+    private CashFlowSchedule schedule;
+
+    private static volatile YieldSolver yieldSolver = new SafeguardedNewtonSolver();
+
+    // Need constructors for when price is not avail and when YTM is not avail?
+    public Bond(double faceValue, double couponRate, LocalDate maturityDate, int couponFrequency, LocalDate settlementDate, double value, boolean isPrice) {
+        this(faceValue, couponRate, maturityDate, couponFrequency, settlementDate, value, isPrice, CashFlowSchedule.DayCount.ACT_ACT, true);
+    }
+
+    // Prices are clean (quoted without accrued interest); the day count decides how much has accrued
+    public Bond(double faceValue, double couponRate, LocalDate maturityDate, int couponFrequency, LocalDate settlementDate, double value, boolean isPrice, CashFlowSchedule.DayCount dayCount) {
+        this(faceValue, couponRate, maturityDate, couponFrequency, settlementDate, value, isPrice, dayCount, true);
+    }
+
+    private Bond(double faceValue, double couponRate, LocalDate maturityDate, int couponFrequency, LocalDate settlementDate, double value, boolean isPrice, CashFlowSchedule.DayCount dayCount, boolean fetchBenchmark) {
+        this.faceValue = faceValue;
+        this.couponRate = couponRate;
+        this.maturityDate = maturityDate;
+        this.couponFrequency = couponFrequency;
+        this.settlementDate = settlementDate;
+        this.treasuryYield = 0.0;
+        this.bondSpread = 0.0;
+
+        // Built once; the solver and the analytics both work from it
+        this.schedule = new CashFlowSchedule(faceValue, couponRate, maturityDate, couponFrequency, settlementDate, dayCount);
+        this.accruedInterest = schedule.getAccruedInterest();
+
+        if (isPrice) {
+            this.price = value;
+            this.yieldToMaturity = calculateYTM();
+        } else {
+            this.yieldToMaturity = value;
+        }
+
+        // One pass over the cash flows gives the price (when only the yield was given),
+        // durations and convexity together
+        AnalyticsResult analytics = new AnalyticsResult();
+        schedule.calculate(yieldToMaturity, analytics);
+        if (!isPrice) {
+            this.price = analytics.getPrice() - accruedInterest;
+        }
+        this.macaulayDuration = analytics.getMacaulayDuration();
+        this.modifiedDuration = analytics.getModifiedDuration();
+        this.convexity = analytics.getConvexity();
+        this.tenor = calculateTenor(yearsToMaturity(settlementDate, maturityDate));
+        if (fetchBenchmark) {
+            this.treasuryYield = fetchTreasuryYield();
+            this.bondSpread = calculateSpread();
+        } else {
+            this.treasuryYield = Double.NaN;
+            this.bondSpread = Double.NaN;
+        }
+    }
+
+    // Price/yield, durations and convexity only, without going to the treasury data. The benchmark
+    // yield and spread are NaN until applyBenchmark is called (see BondViewer).
+    public static Bond withoutBenchmark(double faceValue, double couponRate, LocalDate maturityDate, int couponFrequency, LocalDate settlementDate, double value, boolean isPrice) {
+        return withoutBenchmark(faceValue, couponRate, maturityDate, couponFrequency, settlementDate, value, isPrice, CashFlowSchedule.DayCount.ACT_ACT);
+    }
+
+    public static Bond withoutBenchmark(double faceValue, double couponRate, LocalDate maturityDate, int couponFrequency, LocalDate settlementDate, double value, boolean isPrice, CashFlowSchedule.DayCount dayCount) {
+        return new Bond(faceValue, couponRate, maturityDate, couponFrequency, settlementDate, value, isPrice, dayCount, false);
+    }
+
+    // Benchmark yield for this bond's maturity on the given treasury curve
+    public double benchmarkYield(YieldCurve curve) {
+        return curve.yieldAt(yearsToMaturity(settlementDate, maturityDate));
+    }
+
+    public void applyBenchmark(double treasuryYield) {
+        this.treasuryYield = treasuryYield;
+        this.bondSpread = calculateSpread();
+    }
+
+    public double getFaceValue() {
+        return faceValue;
+    }
+
+    public double getCouponRate() {
+        return couponRate;
+    }
+
+    public LocalDate getMaturityDate() {
+        return maturityDate;
+    }
+
+    public int getCouponFrequency() {
+        return couponFrequency;
+    }
+
+    public LocalDate getSettlementDate() {
+        return settlementDate;
+    }
+
+    public double getMacaulayDuration() {
+        return macaulayDuration;
+    }
+
+    public double getModifiedDuration() {
+        return modifiedDuration;
+    }
+
+    public double getConvexity() {
+        return convexity;
+    }
+
+    public double getYieldToMaturity() {
+        return yieldToMaturity;
+    }
+
+    // Clean price
+    public double getPrice() {
+        return price;
+    }
+
+    public double getDirtyPrice() {
+        return price + accruedInterest;
+    }
+
+    public double getAccruedInterest() {
+        return accruedInterest;
+    }
+
+    public CashFlowSchedule getCashFlowSchedule() {
+        return schedule;
+    }
+    
+    public double getTreasuryYield() {
+    	return treasuryYield;
+    }
+    
+    public double getSpread() {
+    	return yieldToMaturity - treasuryYield;
+    }
+    
+    public String getTenor() {
+    	return tenor;
+    }
+
+    public static YieldSolver getYieldSolver() {
+        return yieldSolver;
+    }
+
+    public static void setYieldSolver(YieldSolver solver) {
+        if (solver == null) {
+            throw new IllegalArgumentException("Yield solver cannot be null.");
+        }
+        yieldSolver = solver;
+    }
+
+    public void setFaceValue(double faceValue) {
+        this.faceValue = faceValue;
+    }
+
+    public void setCouponRate(double couponRate) {
+        this.couponRate = couponRate;
+    }
+
+    public void setMaturityDate(LocalDate maturityDate) {
+        this.maturityDate = maturityDate;
+    }
+
+    public void setCouponFrequency(int couponFrequency) {
+        this.couponFrequency = couponFrequency;
+    }
+
+    public void setSettlementDate(LocalDate settlementDate) {
+        this.settlementDate = settlementDate;
+    }
+
+    public void setTreasuryYield(double treasuryYield) {
+        this.treasuryYield = treasuryYield;
+    }
+
+    public void setBondSpread(double bondSpread) {
+        this.bondSpread = bondSpread;
+    }
+
+    private double calculateYTM() {
+        SolverResult result = new SolverResult();
+        yieldSolver.solve(schedule, price + accruedInterest, YieldSolver.NO_GUESS, result);
+        this.yieldToMaturity = result.getYield();
+        return this.yieldToMaturity;
+    }
+
+    static double yearsToMaturity(LocalDate settlementDate, LocalDate maturityDate) {
+        return ChronoUnit.DAYS.between(settlementDate, maturityDate) / 365.25;
+    }
+
+    static String calculateTenor(double yearsBetween) {
+        if (yearsBetween <= 0.1667) {
+            return "1 Month";
+        } else if (yearsBetween <= 0.375) {
+            return "3 Month";
+        } else if (yearsBetween <= 0.75) {
+            return "6 Month";
+        } else if (yearsBetween <= 1.5) {
+            return "1 Year";
+        } else if (yearsBetween <= 2.5) {
+            return "2 Year";
+        } else if (yearsBetween <= 4) {
+            return "3 Year";
+        } else if (yearsBetween <= 7.5) {
+            return "5 Year";
+        } else if (yearsBetween <= 15) {
+            return "10 Year";
+        } else if (yearsBetween <= 25) {
+            return "20 Year";
+        } else {
+            return "30 Year";
+        }
+    }
+    
+    // Benchmark yield interpolated on the settlement date's treasury curve at the bond's maturity,
+    // or NaN (no benchmark, as in withoutBenchmark) when there is no curve for the date
+    private double fetchTreasuryYield() {
+        YieldCurve curve = TreasuryMarketData.getDefault().getCurve(settlementDate);
+        if (curve == null) {
+            return Double.NaN;
+        }
+        return benchmarkYield(curve);
+    }
+
+    private double calculateSpread() {
+    	return yieldToMaturity - treasuryYield;
+    }
+
+    @Override
+    public String toString() {
+        return "Bond{" +
+                "faceValue=" + faceValue +
+                ", couponRate=" + couponRate +
+                ", maturityDate=" + maturityDate +
+                ", couponFrequency=" + couponFrequency +
+                ", settlementDate=" + settlementDate +
+                ", price=" + price +
+                ", accruedInterest=" + accruedInterest +
+                ", yieldToMaturity=" + yieldToMaturity +
+                ", macaulayDuration=" + macaulayDuration +
+                ", modifiedDuration=" + modifiedDuration +
+                ", convexity=" + convexity +
+                ", treasuryYield=" + treasuryYield +
+                ", bondSpread=" + bondSpread +
+                ", tenor=" + tenor +
+                '}';
+    }
+    
+    public static void main(String[] args) {
+        Bond bondWithYTM = new Bond(1000, 0.07, LocalDate.of(2035, 12, 31), 1, LocalDate.of(2020, 1, 1), 0.09, false);
+        System.out.println(bondWithYTM);
+        
+        Bond bondUpdated = new Bond(1000, 0.08, LocalDate.of(2026, 01, 01), 2, LocalDate.of(2020, 1, 1), 911.37, true);
+        System.out.println(bondUpdated);
+    }
+
+}
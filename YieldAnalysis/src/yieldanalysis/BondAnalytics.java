@@ -0,0 +1,94 @@
+package yieldanalysis;
+
+// Immutable snapshot of everything Bond works out for a set of terms. Unlike Bond it can be
+// shared between threads and handed out from a cache.
+public final class BondAnalytics {
+
+    private final BondTerms terms;
+    private final double price;
+    private final double accruedInterest;
+    private final double yieldToMaturity;
+    private final double macaulayDuration;
+    private final double modifiedDuration;
+    private final double convexity;
+    private final String tenor;
+    private final double treasuryYield;
+
+    private BondAnalytics(BondTerms terms, Bond bond) {
+        this.terms = terms;
+        this.price = bond.getPrice();
+        this.accruedInterest = bond.getAccruedInterest();
+        this.yieldToMaturity = bond.getYieldToMaturity();
+        this.macaulayDuration = bond.getMacaulayDuration();
+        this.modifiedDuration = bond.getModifiedDuration();
+        this.convexity = bond.getConvexity();
+        this.tenor = bond.getTenor();
+        this.treasuryYield = bond.getTreasuryYield();
+    }
+
+    // Analyses the terms; the benchmark yield (and so the spread) is NaN if curve is null
+    static BondAnalytics calculate(BondTerms terms, YieldCurve curve) {
+        Bond bond = Bond.withoutBenchmark(terms.getFaceValue(), terms.getCouponRate(), terms.getMaturityDate(),
+                terms.getCouponFrequency(), terms.getSettlementDate(), terms.getValue(), terms.isPrice(),
+                terms.getDayCount());
+        if (curve != null) {
+            bond.applyBenchmark(bond.benchmarkYield(curve));
+        }
+        return new BondAnalytics(terms, bond);
+    }
+
+    public BondTerms getTerms() {
+        return terms;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+
+    public double getAccruedInterest() {
+        return accruedInterest;
+    }
+
+    public double getYieldToMaturity() {
+        return yieldToMaturity;
+    }
+
+    public double getMacaulayDuration() {
+        return macaulayDuration;
+    }
+
+    public double getModifiedDuration() {
+        return modifiedDuration;
+    }
+
+    public double getConvexity() {
+        return convexity;
+    }
+
+    public String getTenor() {
+        return tenor;
+    }
+
+    public double getTreasuryYield() {
+        return treasuryYield;
+    }
+
+    public double getSpread() {
+        return yieldToMaturity - treasuryYield;
+    }
+
+    @Override
+    public String toString() {
+        return "BondAnalytics{" +
+                "terms=" + terms +
+                ", price=" + price +
+                ", accruedInterest=" + accruedInterest +
+                ", yieldToMaturity=" + yieldToMaturity +
+                ", macaulayDuration=" + macaulayDuration +
+                ", modifiedDuration=" + modifiedDuration +
+                ", convexity=" + convexity +
+                ", tenor=" + tenor +
+                ", treasuryYield=" + treasuryYield +
+                '}';
+    }
+}
@@ -0,0 +1,176 @@
+package yieldanalysis;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+// Remembers the analytics of recently seen bond terms, so asking for the same bond again
+// (the viewer, batch jobs, what-if tools) doesn't solve and walk the cash flows again.
+//
+// The entries are split over a fixed number of segments, each a small access-ordered LRU
+// map with its own lock, so threads looking up different bonds rarely wait for each other.
+// Every segment holds at most its share of maxEntries. Results are computed outside the
+// lock; two threads missing on the same terms at once may both compute them, which is
+// harmless. Results without a benchmark (offline, or while FRED is failing) are kept too.
+// When the treasury data behind a settlement date changes, including a curve turning up
+// for a date that had none, the entries settling on it are dropped. The cache listens to
+// the market data for that until it is closed.
+public class BondAnalyticsCache implements TreasuryMarketData.ChangeListener, AutoCloseable {
+
+    private static final int SEGMENTS = 16;
+
+    private static BondAnalyticsCache defaultCache;
+
+    private final TreasuryMarketData marketData;
+    private final Segment[] segments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    // Bumped by every invalidation, so a result computed from replaced data isn't stored
+    private final AtomicLong generation = new AtomicLong();
+
+    private final class Segment extends LinkedHashMap<BondTerms, BondAnalytics> {
+        private final int maxEntries;
+
+        Segment(int maxEntries) {
+            super(16, 0.75f, true);
+            this.maxEntries = maxEntries;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<BondTerms, BondAnalytics> eldest) {
+            if (size() > maxEntries) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    public BondAnalyticsCache(TreasuryMarketData marketData, int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("Cache size must be positive.");
+        }
+        this.marketData = marketData;
+        this.segments = new Segment[SEGMENTS];
+        int perSegment = Math.max(1, (maxEntries + SEGMENTS - 1) / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(perSegment);
+        }
+        marketData.addChangeListener(this);
+    }
+
+    // Shared instance over TreasuryMarketData.getDefault() as it is when first asked for
+    public static synchronized BondAnalyticsCache getDefault() {
+        if (defaultCache == null) {
+            defaultCache = new BondAnalyticsCache(TreasuryMarketData.getDefault(), 10_000);
+            BondAnalyticsCache cache = defaultCache;
+            Metrics.gauge("analytics_cache.hits", cache::getHitCount);
+            Metrics.gauge("analytics_cache.misses", cache::getMissCount);
+            Metrics.gauge("analytics_cache.evictions", cache::getEvictionCount);
+            Metrics.gauge("analytics_cache.hit_rate", cache::getHitRate);
+            Metrics.gauge("analytics_cache.size", cache::size);
+        }
+        return defaultCache;
+    }
+
+    public BondAnalytics get(BondTerms terms) {
+        return get(terms, marketData::getCurve);
+    }
+
+    // As get(terms), but on a miss the treasury curve comes from curves, for callers that have
+    // already resolved them off the threads doing the work
+    public BondAnalytics get(BondTerms terms, Function<LocalDate, YieldCurve> curves) {
+        Segment segment = segmentFor(terms);
+        BondAnalytics analytics;
+        synchronized (segment) {
+            analytics = segment.get(terms);
+        }
+        if (analytics != null) {
+            hits.increment();
+            return analytics;
+        }
+        misses.increment();
+
+        long before = generation.get();
+        analytics = BondAnalytics.calculate(terms, curves.apply(terms.getSettlementDate()));
+        synchronized (segment) {
+            if (generation.get() == before) {
+                BondAnalytics existing = segment.putIfAbsent(terms, analytics);
+                if (existing != null) {
+                    return existing;
+                }
+            }
+        }
+        return analytics;
+    }
+
+    // Drops every entry settling between the dates (inclusive)
+    @Override
+    public void curvesChanged(LocalDate from, LocalDate to) {
+        generation.incrementAndGet();
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.keySet().removeIf(terms -> !terms.getSettlementDate().isBefore(from)
+                        && !terms.getSettlementDate().isAfter(to));
+            }
+        }
+    }
+
+    // Stops listening to the market data, which would otherwise keep the cache alive for as
+    // long as the market data lives, and drops every entry
+    @Override
+    public void close() {
+        marketData.removeChangeListener(this);
+        clear();
+    }
+
+    TreasuryMarketData getMarketData() {
+        return marketData;
+    }
+
+    public void clear() {
+        generation.incrementAndGet();
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0.0 : (double) hitCount / total;
+    }
+
+    private Segment segmentFor(BondTerms terms) {
+        int h = terms.hashCode();
+        return segments[(h ^ (h >>> 16)) & (SEGMENTS - 1)];
+    }
+}
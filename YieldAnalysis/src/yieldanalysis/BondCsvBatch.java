@@ -0,0 +1,330 @@
+package yieldanalysis;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+
+// Headless batch mode: streams a CSV of bond terms through the analytics and writes one result
+// line per input line, in the same order.
+//
+// Input columns: face,coupon,maturity,frequency,settlement,value,type
+//   coupon is a decimal rate, dates are yyyy-MM-dd, and type is "price" or "yield" (value is
+//   then a price, or a decimal yield). A header line is allowed.
+// Output columns: the input columns, then price,ytm,macaulay,modified,convexity,tenor,
+//   treasury_yield,spread,error. Rows that can't be read or priced keep their input and only
+//   fill in error.
+//
+// Three stages run at once: a reader thread cuts the file into chunks of lines, the worker
+// pool parses and prices each chunk as a small BondPortfolio, and the calling thread writes
+// the encoded chunks back out in order. The reader also looks up the treasury curves of each
+// chunk's settlement dates before handing it over, so a slow FRED request blocks the reader,
+// never a pool worker. Only a fixed number of chunks is ever in flight, so memory
+// use doesn't depend on the size of the file.
+public class BondCsvBatch {
+
+    static final int CHUNK_ROWS = 1024;
+
+    private static final String HEADER = "face,coupon,maturity,frequency,settlement,value,type,"
+            + "price,ytm,macaulay,modified,convexity,tenor,treasury_yield,spread,error";
+
+    private static final Metrics.Counter ROWS = Metrics.counter("batch.rows");
+    private static final Metrics.Counter ROW_ERRORS = Metrics.counter("batch.row_errors");
+    private static final Metrics.Distribution CHUNK_TIME = Metrics.distribution("batch.chunk_time");
+
+    // Throughput of the last completed run
+    private static volatile double lastRowsPerSecond;
+
+    static {
+        Metrics.gauge("batch.rows_per_second", () -> lastRowsPerSecond);
+    }
+
+    // Marks the end of the input on the pending queue
+    private static final CompletableFuture<byte[]> END = CompletableFuture.completedFuture(null);
+
+    private final TreasuryMarketData marketData;
+    private final ForkJoinPool pool;
+    private final int maxChunksInFlight;
+
+    public BondCsvBatch(TreasuryMarketData marketData, ForkJoinPool pool) {
+        this.marketData = marketData;
+        this.pool = pool;
+        this.maxChunksInFlight = pool.getParallelism() * 2;
+    }
+
+    // Processes the whole input and returns the number of data rows written
+    public long run(Path input, Path output) throws IOException {
+        MetricsEvents.BatchRun event = new MetricsEvents.BatchRun();
+        event.begin();
+        long start = System.nanoTime();
+        BlockingQueue<CompletableFuture<byte[]>> pending = new ArrayBlockingQueue<>(maxChunksInFlight);
+        IOException[] readFailure = new IOException[1];
+        long[] rows = new long[1];
+
+        Thread reader = new Thread(() -> {
+            try {
+                rows[0] = read(input, pending);
+            } catch (IOException e) {
+                readFailure[0] = e;
+            } catch (InterruptedException e) {
+                // The writer gave up
+                return;
+            }
+            try {
+                pending.put(END);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "bond-csv-reader");
+        reader.setDaemon(true);
+        reader.start();
+
+        try (FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            write(channel, (HEADER + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+            while (true) {
+                CompletableFuture<byte[]> chunk = pending.take();
+                if (chunk == END) {
+                    break;
+                }
+                write(channel, chunk.join());
+            }
+        } catch (InterruptedException e) {
+            reader.interrupt();
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while writing " + output, e);
+        } catch (IOException | CompletionException e) {
+            reader.interrupt();
+            throw e;
+        }
+
+        try {
+            reader.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (readFailure[0] != null) {
+            throw readFailure[0];
+        }
+
+        lastRowsPerSecond = rows[0] / ((System.nanoTime() - start) / 1e9);
+        event.end();
+        if (event.shouldCommit()) {
+            event.input = input.toString();
+            event.rows = rows[0];
+            event.commit();
+        }
+        return rows[0];
+    }
+
+    private static void write(FileChannel channel, byte[] bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private long read(Path input, BlockingQueue<CompletableFuture<byte[]>> pending) throws IOException, InterruptedException {
+        long rows = 0;
+        try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ);
+             BufferedReader reader = new BufferedReader(Channels.newReader(channel, StandardCharsets.UTF_8), 1 << 16)) {
+            String[] lines = new String[CHUNK_ROWS];
+            int count = 0;
+            boolean first = true;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (first) {
+                    first = false;
+                    if (isHeader(line)) {
+                        continue;
+                    }
+                }
+                if (line.isBlank()) {
+                    continue;
+                }
+                lines[count++] = line;
+                rows++;
+                if (count == CHUNK_ROWS) {
+                    submit(lines, count, pending);
+                    lines = new String[CHUNK_ROWS];
+                    count = 0;
+                }
+            }
+            if (count > 0) {
+                submit(lines, count, pending);
+            }
+        }
+        return rows;
+    }
+
+    private void submit(String[] lines, int count, BlockingQueue<CompletableFuture<byte[]>> pending) throws InterruptedException {
+        Map<LocalDate, YieldCurve> curves = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            LocalDate settlementDate = settlementDate(lines[i]);
+            if (settlementDate != null && !curves.containsKey(settlementDate)) {
+                curves.put(settlementDate, marketData.getCurve(settlementDate));
+            }
+        }
+        // Blocks once maxChunksInFlight chunks are waiting to be written
+        pending.put(CompletableFuture.supplyAsync(() -> process(lines, count, curves), pool));
+    }
+
+    // The settlement column, or null if the line is too malformed to have one (process()
+    // reports the error)
+    private static LocalDate settlementDate(String line) {
+        int from = 0;
+        for (int column = 0; column < 4; column++) {
+            from = line.indexOf(',', from) + 1;
+            if (from == 0) {
+                return null;
+            }
+        }
+        int to = line.indexOf(',', from);
+        try {
+            return LocalDate.parse(line.substring(from, to < 0 ? line.length() : to).trim());
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static boolean isHeader(String line) {
+        return !line.isEmpty() && !Character.isDigit(line.charAt(0)) && line.charAt(0) != '-' && line.charAt(0) != '.';
+    }
+
+    // Parses and prices one chunk; returns its output lines, already encoded so the writer
+    // only has to copy bytes
+    private byte[] process(String[] lines, int count, Map<LocalDate, YieldCurve> curves) {
+        long start = Metrics.startTime();
+        BondPortfolio portfolio = new BondPortfolio(count);
+        int[] rowOf = new int[count];
+        String[] errors = new String[count];
+
+        for (int i = 0; i < count; i++) {
+            try {
+                rowOf[i] = add(portfolio, lines[i]);
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                rowOf[i] = -1;
+                errors[i] = e.getMessage();
+                ROW_ERRORS.increment();
+            }
+        }
+        // Already on a pool thread, so the portfolio's own split stays inside the same pool
+        portfolio.calculate(pool);
+        portfolio.calculateSpreads(curves::get);
+
+        StringBuilder out = new StringBuilder(count * 192);
+        for (int i = 0; i < count; i++) {
+            out.append(lines[i]);
+            int row = rowOf[i];
+            if (row < 0) {
+                out.append(",,,,,,,,,").append(quote(errors[i]));
+            } else {
+                double ytm = portfolio.getYieldToMaturity(row);
+                append(out, portfolio.getPrice(row));
+                append(out, ytm);
+                append(out, portfolio.getMacaulayDuration(row));
+                append(out, portfolio.getModifiedDuration(row));
+                append(out, portfolio.getConvexity(row));
+                out.append(',').append(portfolio.getTenor(row));
+                append(out, portfolio.getTreasuryYield(row));
+                append(out, portfolio.getSpread(row));
+                out.append(',');
+                if (Double.isNaN(ytm)) {
+                    out.append("no yield for this price");
+                }
+            }
+            out.append(System.lineSeparator());
+        }
+        byte[] encoded = out.toString().getBytes(StandardCharsets.UTF_8);
+        ROWS.add(count);
+        CHUNK_TIME.recordSince(start);
+        return encoded;
+    }
+
+    private static int add(BondPortfolio portfolio, String line) {
+        String[] fields = line.split(",", -1);
+        if (fields.length != 7) {
+            throw new IllegalArgumentException("Expected 7 columns but found " + fields.length + ".");
+        }
+        boolean isPrice;
+        String type = fields[6].trim();
+        if (type.equalsIgnoreCase("price")) {
+            isPrice = true;
+        } else if (type.equalsIgnoreCase("yield")) {
+            isPrice = false;
+        } else {
+            throw new IllegalArgumentException("Type must be price or yield.");
+        }
+        return portfolio.add(
+                parseDouble(fields[0], "Face Value"),
+                parseDouble(fields[1], "Coupon Rate"),
+                LocalDate.parse(fields[2].trim()),
+                parseInt(fields[3], "Coupon Frequency"),
+                LocalDate.parse(fields[4].trim()),
+                parseDouble(fields[5], isPrice ? "Price" : "Yield"),
+                isPrice);
+    }
+
+    private static double parseDouble(String field, String name) {
+        try {
+            return Double.parseDouble(field.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be a number.");
+        }
+    }
+
+    private static int parseInt(String field, String name) {
+        try {
+            return Integer.parseInt(field.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be a whole number.");
+        }
+    }
+
+    private static void append(StringBuilder out, double value) {
+        out.append(',');
+        if (!Double.isNaN(value)) {
+            out.append(value);
+        }
+    }
+
+    private static String quote(String text) {
+        return '"' + String.valueOf(text).replace("\"", "\"\"") + '"';
+    }
+
+    // java yieldanalysis.BondCsvBatch <input.csv> <output.csv> [threads]
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2 || args.length > 3) {
+            System.err.println("Usage: BondCsvBatch <input.csv> <output.csv> [threads]");
+            System.exit(1);
+        }
+        int threads = args.length == 3 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        BondCsvBatch batch = new BondCsvBatch(TreasuryMarketData.getDefault(), pool);
+
+        long start = System.nanoTime();
+        long rows = batch.run(Paths.get(args[0]), Paths.get(args[1]));
+        long elapsed = System.nanoTime() - start;
+        pool.shutdown();
+
+        System.out.println("Processed " + rows + " bonds in " + elapsed / 1_000_000 + " ms ("
+                + Math.round(rows / (elapsed / 1e9)) + " rows/s)");
+        if (Metrics.ENABLED) {
+            Metrics.report(System.out);
+        }
+    }
+}
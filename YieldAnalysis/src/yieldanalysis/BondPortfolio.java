@@ -0,0 +1,352 @@
+package yieldanalysis;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+
+// Column-oriented book of bonds. Every attribute lives in its own primitive array so that
+// tens of thousands of rows can be priced without creating a Bond (and its FRED call) per row.
+public class BondPortfolio {
+
+    // Rows per fork-join leaf task; below this splitting costs more than it saves
+    private static final int BATCH_SIZE = 512;
+
+    private int size;
+
+    private double[] faceValue;
+    private double[] couponRate;
+    private int[] couponFrequency;
+    private long[] settlementDate;
+    private long[] maturityDate;
+    private double[] inputValue;
+    private boolean[] isPrice;
+
+    // Coupons left, the periods to the first of them and the accrued interest are derived
+    // from the dates once, when the row is added (see CashFlowSchedule)
+    private int[] periods;
+    private double[] firstPeriod;
+    private double[] accruedInterest;
+    private CashFlowSchedule.DayCount[] dayCount;
+    // Built on first use and shared by the engines that walk individual cash flows
+    private CashFlowSchedule[] schedules;
+
+    private double[] price;
+    private double[] yieldToMaturity;
+    private double[] macaulayDuration;
+    private double[] modifiedDuration;
+    private double[] convexity;
+
+    private double[] treasuryYield;
+    private double[] spread;
+
+    // Rows with a yield from a previous calculate() warm-start the solver from it
+    private boolean[] calculated;
+
+    public BondPortfolio() {
+        this(1024);
+    }
+
+    public BondPortfolio(int initialCapacity) {
+        if (initialCapacity < 1) {
+            throw new IllegalArgumentException("Initial capacity must be positive.");
+        }
+        faceValue = new double[initialCapacity];
+        couponRate = new double[initialCapacity];
+        couponFrequency = new int[initialCapacity];
+        settlementDate = new long[initialCapacity];
+        maturityDate = new long[initialCapacity];
+        inputValue = new double[initialCapacity];
+        isPrice = new boolean[initialCapacity];
+        periods = new int[initialCapacity];
+        firstPeriod = new double[initialCapacity];
+        accruedInterest = new double[initialCapacity];
+        dayCount = new CashFlowSchedule.DayCount[initialCapacity];
+        schedules = new CashFlowSchedule[initialCapacity];
+        price = new double[initialCapacity];
+        yieldToMaturity = new double[initialCapacity];
+        macaulayDuration = new double[initialCapacity];
+        modifiedDuration = new double[initialCapacity];
+        convexity = new double[initialCapacity];
+        treasuryYield = new double[initialCapacity];
+        spread = new double[initialCapacity];
+        calculated = new boolean[initialCapacity];
+    }
+
+    // Same arguments as the Bond constructor; returns the row index of the new bond
+    public int add(double faceValue, double couponRate, LocalDate maturityDate, int couponFrequency, LocalDate settlementDate, double value, boolean isPrice) {
+        return add(faceValue, couponRate, maturityDate, couponFrequency, settlementDate, value, isPrice, CashFlowSchedule.DayCount.ACT_ACT);
+    }
+
+    public int add(double faceValue, double couponRate, LocalDate maturityDate, int couponFrequency, LocalDate settlementDate, double value, boolean isPrice, CashFlowSchedule.DayCount dayCount) {
+        if (couponFrequency != 1 && couponFrequency != 2 && couponFrequency != 4 && couponFrequency != 12) {
+            throw new IllegalArgumentException("Coupon Frequency must be 1, 2, 4 or 12.");
+        }
+        if (settlementDate.isAfter(maturityDate)) {
+            throw new IllegalArgumentException("Settlement Date cannot be later than Maturity Date.");
+        }
+        if (size == this.faceValue.length) {
+            grow();
+        }
+
+        int row = size++;
+        this.faceValue[row] = faceValue;
+        this.couponRate[row] = couponRate;
+        this.couponFrequency[row] = couponFrequency;
+        this.settlementDate[row] = settlementDate.toEpochDay();
+        this.maturityDate[row] = maturityDate.toEpochDay();
+        this.inputValue[row] = value;
+        this.isPrice[row] = isPrice;
+        int n = CashFlowSchedule.couponsRemaining(settlementDate, maturityDate, couponFrequency);
+        double accrued = CashFlowSchedule.accruedFraction(settlementDate, maturityDate, couponFrequency, n, dayCount);
+        this.periods[row] = n;
+        this.firstPeriod[row] = 1 - accrued;
+        this.accruedInterest[row] = faceValue * couponRate / couponFrequency * accrued;
+        this.dayCount[row] = dayCount;
+        this.schedules[row] = null;
+        this.calculated[row] = false;
+        return row;
+    }
+
+    // Quotes a new (clean) price for an existing row; the next calculate() re-solves its yield
+    // starting from the previous one
+    public void setPrice(int row, double price) {
+        inputValue[checkRow(row)] = price;
+        isPrice[row] = true;
+    }
+
+    public void setYieldToMaturity(int row, double yieldToMaturity) {
+        inputValue[checkRow(row)] = yieldToMaturity;
+        isPrice[row] = false;
+    }
+
+    private void grow() {
+        int capacity = faceValue.length * 2;
+        faceValue = Arrays.copyOf(faceValue, capacity);
+        couponRate = Arrays.copyOf(couponRate, capacity);
+        couponFrequency = Arrays.copyOf(couponFrequency, capacity);
+        settlementDate = Arrays.copyOf(settlementDate, capacity);
+        maturityDate = Arrays.copyOf(maturityDate, capacity);
+        inputValue = Arrays.copyOf(inputValue, capacity);
+        isPrice = Arrays.copyOf(isPrice, capacity);
+        periods = Arrays.copyOf(periods, capacity);
+        firstPeriod = Arrays.copyOf(firstPeriod, capacity);
+        accruedInterest = Arrays.copyOf(accruedInterest, capacity);
+        dayCount = Arrays.copyOf(dayCount, capacity);
+        schedules = Arrays.copyOf(schedules, capacity);
+        price = Arrays.copyOf(price, capacity);
+        yieldToMaturity = Arrays.copyOf(yieldToMaturity, capacity);
+        macaulayDuration = Arrays.copyOf(macaulayDuration, capacity);
+        modifiedDuration = Arrays.copyOf(modifiedDuration, capacity);
+        convexity = Arrays.copyOf(convexity, capacity);
+        treasuryYield = Arrays.copyOf(treasuryYield, capacity);
+        spread = Arrays.copyOf(spread, capacity);
+        calculated = Arrays.copyOf(calculated, capacity);
+    }
+
+    // Prices (or solves the yield of) every row and fills in durations and convexity,
+    // spreading the rows across the common fork-join pool
+    public void calculate() {
+        calculate(ForkJoinPool.commonPool());
+    }
+
+    public void calculate(ForkJoinPool pool) {
+        if (size == 0) {
+            return;
+        }
+        pool.invoke(new CalculateTask(0, size));
+    }
+
+    // Benchmark yields and spreads for a book that settles on one date: one curve, one batch lookup.
+    // Call after calculate().
+    public void calculateSpreads(YieldCurve curve) {
+        double[] maturities = new double[size];
+        for (int row = 0; row < size; row++) {
+            maturities[row] = (maturityDate[row] - settlementDate[row]) / 365.25;
+        }
+        curve.yieldsAt(maturities, treasuryYield);
+        for (int row = 0; row < size; row++) {
+            spread[row] = yieldToMaturity[row] - treasuryYield[row];
+        }
+    }
+
+    // Same, for books with several settlement dates; each date's curve is built once
+    public void calculateSpreads(TreasuryMarketData marketData) {
+        calculateSpreads(marketData::getCurve);
+    }
+
+    // Same, with the curves looked up elsewhere (for example ahead of time, away from the
+    // worker threads); the function returns null for a date without a curve
+    public void calculateSpreads(Function<LocalDate, YieldCurve> curves) {
+        long curveDate = Long.MIN_VALUE;
+        YieldCurve curve = null;
+        for (int row = 0; row < size; row++) {
+            if (settlementDate[row] != curveDate) {
+                curveDate = settlementDate[row];
+                curve = curves.apply(LocalDate.ofEpochDay(curveDate));
+            }
+            treasuryYield[row] = curve == null ? Double.NaN : curve.yieldAt((maturityDate[row] - settlementDate[row]) / 365.25);
+            spread[row] = yieldToMaturity[row] - treasuryYield[row];
+        }
+    }
+
+    private void calculateRow(int row, YieldSolver solver, SolverResult solverResult, AnalyticsResult analytics) {
+        if (isPrice[row]) {
+            double guess = calculated[row] ? yieldToMaturity[row] : YieldSolver.NO_GUESS;
+            solver.solve(faceValue[row], couponRate[row], couponFrequency[row], periods[row], firstPeriod[row],
+                    inputValue[row] + accruedInterest[row], guess, solverResult);
+            yieldToMaturity[row] = solverResult.getYield();
+        } else {
+            yieldToMaturity[row] = inputValue[row];
+        }
+        AnalyticsKernel.calculate(faceValue[row], couponRate[row], couponFrequency[row], periods[row], firstPeriod[row], yieldToMaturity[row], analytics);
+        price[row] = isPrice[row] ? inputValue[row] : analytics.getPrice() - accruedInterest[row];
+        macaulayDuration[row] = analytics.getMacaulayDuration();
+        modifiedDuration[row] = analytics.getModifiedDuration();
+        convexity[row] = analytics.getConvexity();
+        calculated[row] = !Double.isNaN(yieldToMaturity[row]);
+    }
+
+    private class CalculateTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+
+        CalculateTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= BATCH_SIZE) {
+                YieldSolver solver = Bond.getYieldSolver();
+                SolverResult solverResult = new SolverResult();
+                AnalyticsResult analytics = new AnalyticsResult();
+                for (int row = from; row < to; row++) {
+                    calculateRow(row, solver, solverResult, analytics);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new CalculateTask(from, mid), new CalculateTask(mid, to));
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double getFaceValue(int row) {
+        return faceValue[checkRow(row)];
+    }
+
+    public double getCouponRate(int row) {
+        return couponRate[checkRow(row)];
+    }
+
+    public int getCouponFrequency(int row) {
+        return couponFrequency[checkRow(row)];
+    }
+
+    public LocalDate getSettlementDate(int row) {
+        return LocalDate.ofEpochDay(settlementDate[checkRow(row)]);
+    }
+
+    public LocalDate getMaturityDate(int row) {
+        return LocalDate.ofEpochDay(maturityDate[checkRow(row)]);
+    }
+
+    public CashFlowSchedule.DayCount getDayCount(int row) {
+        return dayCount[checkRow(row)];
+    }
+
+    // Schedule for the row, for engines that need the individual cash flows. It only depends on
+    // the terms, not the quote, so it is built once; schedules are immutable, so two threads
+    // racing to build the same one is harmless.
+    public CashFlowSchedule getCashFlowSchedule(int row) {
+        CashFlowSchedule schedule = schedules[checkRow(row)];
+        if (schedule == null) {
+            schedule = new CashFlowSchedule(faceValue[row], couponRate[row], LocalDate.ofEpochDay(maturityDate[row]),
+                    couponFrequency[row], LocalDate.ofEpochDay(settlementDate[row]), dayCount[row]);
+            schedules[row] = schedule;
+        }
+        return schedule;
+    }
+
+    // Clean price
+    public double getPrice(int row) {
+        return price[checkRow(row)];
+    }
+
+    public double getAccruedInterest(int row) {
+        return accruedInterest[checkRow(row)];
+    }
+
+    public double getYieldToMaturity(int row) {
+        return yieldToMaturity[checkRow(row)];
+    }
+
+    public double getMacaulayDuration(int row) {
+        return macaulayDuration[checkRow(row)];
+    }
+
+    public double getModifiedDuration(int row) {
+        return modifiedDuration[checkRow(row)];
+    }
+
+    public double getConvexity(int row) {
+        return convexity[checkRow(row)];
+    }
+
+    public String getTenor(int row) {
+        return Bond.calculateTenor((maturityDate[checkRow(row)] - settlementDate[row]) / 365.25);
+    }
+
+    public double getTreasuryYield(int row) {
+        return treasuryYield[checkRow(row)];
+    }
+
+    public double getSpread(int row) {
+        return spread[checkRow(row)];
+    }
+
+    private int checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " is outside the portfolio of " + size + " bonds.");
+        }
+        return row;
+    }
+
+    public static void main(String[] args) {
+        BondPortfolio portfolio = new BondPortfolio();
+        LocalDate settlement = LocalDate.of(2020, 1, 1);
+        int[] frequencies = {1, 2, 4, 12};
+
+        for (int i = 0; i < 50_000; i++) {
+            LocalDate maturity = settlement.plusMonths(12 + i % 348);
+            int frequency = frequencies[i % frequencies.length];
+            if (i % 2 == 0) {
+                portfolio.add(1000, 0.02 + (i % 60) * 0.001, maturity, frequency, settlement, 900 + i % 200, true);
+            } else {
+                portfolio.add(1000, 0.02 + (i % 60) * 0.001, maturity, frequency, settlement, 0.01 + (i % 80) * 0.001, false);
+            }
+        }
+
+        long start = System.nanoTime();
+        portfolio.calculate();
+        long elapsed = System.nanoTime() - start;
+
+        System.out.println("Priced " + portfolio.size() + " bonds in " + elapsed / 1_000_000 + " ms");
+        for (int row = 0; row < portfolio.size(); row += 2) {
+            portfolio.setPrice(row, portfolio.getPrice(row) + 0.25);
+        }
+        start = System.nanoTime();
+        portfolio.calculate();
+        elapsed = System.nanoTime() - start;
+        System.out.println("Re-priced after a quarter point move in " + elapsed / 1_000_000 + " ms");
+
+        System.out.println("Row 0: price=" + portfolio.getPrice(0) + ", ytm=" + portfolio.getYieldToMaturity(0)
+                + ", modifiedDuration=" + portfolio.getModifiedDuration(0) + ", convexity=" + portfolio.getConvexity(0));
+    }
+}
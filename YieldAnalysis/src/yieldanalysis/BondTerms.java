@@ -0,0 +1,118 @@
+package yieldanalysis;
+
+import java.time.LocalDate;
+import java.util.Objects;
+
+// Immutable description of a bond plus the quote to analyse it at: everything the Bond
+// constructor takes, day count included. Equal terms always give equal analytics, so this is
+// the cache key.
+public final class BondTerms {
+
+    private final double faceValue;
+    private final double couponRate;
+    private final LocalDate maturityDate;
+    private final int couponFrequency;
+    private final LocalDate settlementDate;
+    private final double value;
+    private final boolean isPrice;
+    private final CashFlowSchedule.DayCount dayCount;
+
+    public BondTerms(double faceValue, double couponRate, LocalDate maturityDate, int couponFrequency, LocalDate settlementDate, double value, boolean isPrice) {
+        this(faceValue, couponRate, maturityDate, couponFrequency, settlementDate, value, isPrice, CashFlowSchedule.DayCount.ACT_ACT);
+    }
+
+    public BondTerms(double faceValue, double couponRate, LocalDate maturityDate, int couponFrequency, LocalDate settlementDate, double value, boolean isPrice,
+            CashFlowSchedule.DayCount dayCount) {
+        if (dayCount == null) {
+            throw new IllegalArgumentException("Day Count is required.");
+        }
+        if (maturityDate == null || settlementDate == null) {
+            throw new IllegalArgumentException("Maturity Date and Settlement Date are required.");
+        }
+        if (couponFrequency != 1 && couponFrequency != 2 && couponFrequency != 4 && couponFrequency != 12) {
+            throw new IllegalArgumentException("Coupon Frequency must be 1, 2, 4 or 12.");
+        }
+        if (settlementDate.isAfter(maturityDate)) {
+            throw new IllegalArgumentException("Settlement Date cannot be later than Maturity Date.");
+        }
+        this.faceValue = faceValue;
+        this.couponRate = couponRate;
+        this.maturityDate = maturityDate;
+        this.couponFrequency = couponFrequency;
+        this.settlementDate = settlementDate;
+        this.value = value;
+        this.isPrice = isPrice;
+        this.dayCount = dayCount;
+    }
+
+    public double getFaceValue() {
+        return faceValue;
+    }
+
+    public double getCouponRate() {
+        return couponRate;
+    }
+
+    public LocalDate getMaturityDate() {
+        return maturityDate;
+    }
+
+    public int getCouponFrequency() {
+        return couponFrequency;
+    }
+
+    public LocalDate getSettlementDate() {
+        return settlementDate;
+    }
+
+    // The price, or the yield to maturity as a decimal, depending on isPrice()
+    public double getValue() {
+        return value;
+    }
+
+    public boolean isPrice() {
+        return isPrice;
+    }
+
+    public CashFlowSchedule.DayCount getDayCount() {
+        return dayCount;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof BondTerms)) {
+            return false;
+        }
+        BondTerms other = (BondTerms) o;
+        return Double.compare(faceValue, other.faceValue) == 0
+                && Double.compare(couponRate, other.couponRate) == 0
+                && couponFrequency == other.couponFrequency
+                && Double.compare(value, other.value) == 0
+                && isPrice == other.isPrice
+                && dayCount == other.dayCount
+                && maturityDate.equals(other.maturityDate)
+                && settlementDate.equals(other.settlementDate);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(faceValue, couponRate, maturityDate, couponFrequency, settlementDate, value, isPrice, dayCount);
+    }
+
+    @Override
+    public String toString() {
+        return "BondTerms{" +
+                "faceValue=" + faceValue +
+                ", couponRate=" + couponRate +
+                ", maturityDate=" + maturityDate +
+                ", couponFrequency=" + couponFrequency +
+                ", settlementDate=" + settlementDate +
+                ", value=" + value +
+                ", isPrice=" + isPrice +
+                ", dayCount=" + dayCount +
+                '}';
+    }
+}
@@ -1,3 +1,4 @@
+package yieldanalysis;
 
 import javax.swing.*;
 import javax.swing.event.DocumentEvent;
@@ -5,9 +6,12 @@ import javax.swing.event.DocumentListener;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.io.IOException;
 import java.text.DecimalFormat;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
 
 public class BondViewer extends JFrame {
 	private JTextField faceValueField;
@@ -25,11 +29,24 @@ public class BondViewer extends JFrame {
     private JLabel benchmarkYieldLabel;
     private JLabel spreadLabel;
     private JPanel chartPanel;
+    private PriceYieldChartPanel priceYieldChart;
     
     private Bond bond;
 
     private boolean priceChanged = false;
     private boolean ytmChanged = false;
+
+    // Live recalculation waits this long after the last keystroke in priceField/ytmField
+    private static final int DEBOUNCE_MILLIS = 400;
+    private Timer recalculateTimer;
+
+    // Set while results are written back into priceField/ytmField, so that doesn't count as typing
+    private boolean updatingFields = false;
+
+    // Bumped for every new calculation or input change; older results are dropped
+    private int generation = 0;
+    private AnalyticsWorker analyticsWorker;
+    private BenchmarkWorker benchmarkWorker;
     
     private static DecimalFormat DECIMAL_FORMAT = new DecimalFormat("#.00");
     private static DecimalFormat SPREAD_FORMAT = new DecimalFormat("#");
@@ -54,6 +71,11 @@ public class BondViewer extends JFrame {
         
         chartPanel = new JPanel(new BorderLayout());
         chartPanel.setPreferredSize(new Dimension(700, 400));
+
+        // One chart for the life of the window; calculations only swap its data
+        priceYieldChart = new PriceYieldChartPanel();
+        priceYieldChart.setVisible(false);
+        chartPanel.add(priceYieldChart, BorderLayout.CENTER);
         
         resultAndChartPanel.add(chartPanel, BorderLayout.CENTER);
 
@@ -61,43 +83,103 @@ public class BondViewer extends JFrame {
 
         add(mainPanel);
 
+        // Live recalculation waits for a pause in typing
+        recalculateTimer = new Timer(DEBOUNCE_MILLIS, e -> calculate(true));
+        recalculateTimer.setRepeats(false);
+
         // Listen to the price and yield fields to see if anything's changed
         // Need this to determine what gets calculated
         priceField.getDocument().addDocumentListener(new DocumentListener() {
             @Override
             public void insertUpdate(DocumentEvent e) {
-                priceChanged = true;
+                priceEdited(true);
             }
 
             @Override
             public void removeUpdate(DocumentEvent e) {
-                priceChanged = false;
+                // Clearing the field means there is no price to work from
+                priceEdited(!priceField.getText().isEmpty());
             }
 
             @Override
             public void changedUpdate(DocumentEvent e) {
-                priceChanged = true;
+                priceEdited(true);
             }
         });
 
         ytmField.getDocument().addDocumentListener(new DocumentListener() {
             @Override
             public void insertUpdate(DocumentEvent e) {
-                ytmChanged = true;
+                ytmEdited(true);
             }
 
             @Override
             public void removeUpdate(DocumentEvent e) {
-                ytmChanged = false;
+                ytmEdited(!ytmField.getText().isEmpty());
             }
 
             @Override
             public void changedUpdate(DocumentEvent e) {
-                ytmChanged = true;
+                ytmEdited(true);
             }
         });
 
-        
+        // Any other input change makes a calculation still in flight stale
+        DocumentListener staleInputListener = new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                cancelCalculation();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                cancelCalculation();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                cancelCalculation();
+            }
+        };
+        faceValueField.getDocument().addDocumentListener(staleInputListener);
+        couponRateField.getDocument().addDocumentListener(staleInputListener);
+        maturityDateField.getDocument().addDocumentListener(staleInputListener);
+        settlementDateField.getDocument().addDocumentListener(staleInputListener);
+        couponFrequencyField.addActionListener(e -> cancelCalculation());
+    }
+
+    private void priceEdited(boolean changed) {
+        if (updatingFields) {
+            return;
+        }
+        priceChanged = changed;
+        scheduleRecalculation();
+    }
+
+    private void ytmEdited(boolean changed) {
+        if (updatingFields) {
+            return;
+        }
+        ytmChanged = changed;
+        scheduleRecalculation();
+    }
+
+    private void scheduleRecalculation() {
+        cancelCalculation();
+        recalculateTimer.restart();
+    }
+
+    // Drops whatever is in flight; results that still arrive are ignored because the generation moved on
+    private void cancelCalculation() {
+        generation++;
+        if (analyticsWorker != null) {
+            analyticsWorker.cancel(true);
+            analyticsWorker = null;
+        }
+        if (benchmarkWorker != null) {
+            benchmarkWorker.cancel(true);
+            benchmarkWorker = null;
+        }
     }
     
     private JPanel generateInputPanel() {
@@ -222,6 +304,14 @@ public class BondViewer extends JFrame {
     }
 
     private void calculate() {
+        calculate(false);
+    }
+
+    // Validates the inputs on the event thread, then prices the bond and builds the chart data
+    // in the background. The benchmark yield and spread follow in a second step, since they may
+    // have to wait for FRED. A live (typing) recalculation stays quiet about half-typed input.
+    private void calculate(boolean live) {
+        recalculateTimer.stop();
         try {
         	resultLabel.setText("");
         	
@@ -232,12 +322,10 @@ public class BondViewer extends JFrame {
             LocalDate maturityDate = validateDate(maturityDateField.getText(), "Maturity Date");
             
             if (settlementDate.isAfter(maturityDate)) {
-            	clearPreviousResults();
                 throw new IllegalArgumentException("Settlement Date cannot be later than Maturity Date.");
             }
 
             if (settlementDate.isAfter(LocalDate.now())) {
-            	clearPreviousResults();
                 throw new IllegalArgumentException("Settlement Date cannot be later than today.");
             }
             
@@ -254,43 +342,143 @@ public class BondViewer extends JFrame {
                 couponFrequency = 12;
             }
 
-            if (priceChanged && !ytmChanged) {
-            	double price = validateDouble(priceField.getText(), "Price");
-                bond = new Bond(faceValue, couponRate, maturityDate, couponFrequency, settlementDate, price, true);
-                ytmField.setText(String.valueOf(DECIMAL_FORMAT.format(bond.getYieldToMaturity() * 100)));
-            } else if (ytmChanged && !priceChanged) {
-            	double ytm = validateDouble(ytmField.getText(), "YTM") / 100;
-                bond = new Bond(faceValue, couponRate, maturityDate, couponFrequency, settlementDate, ytm, false);
-                priceField.setText(String.valueOf(DECIMAL_FORMAT.format(bond.getPrice())));
-            } else if (priceChanged && ytmChanged) {
-            	double price = validateDouble(priceField.getText(), "Price");
-                bond = new Bond(faceValue, couponRate, maturityDate, couponFrequency, settlementDate, price, true);
-                ytmField.setText(String.valueOf(DECIMAL_FORMAT.format(bond.getYieldToMaturity() * 100)));
-            } else {
-            	double ytm = validateDouble(ytmField.getText(), "YTM") / 100;
-                bond = new Bond(faceValue, couponRate, maturityDate, couponFrequency, settlementDate, ytm, false);
-                priceField.setText(String.valueOf(DECIMAL_FORMAT.format(bond.getPrice())));
-            }
-
-            macDurationLabel.setText("Macaulay Duration: " + DECIMAL_FORMAT.format(bond.getMacaulayDuration()));
-            modDurationLabel.setText("Modified Duration: " + DECIMAL_FORMAT.format(bond.getModifiedDuration()));
-            convexityLabel.setText("Convexity: " + DECIMAL_FORMAT.format(bond.getConvexity()));
-            tenorLabel.setText("Bond's Tenor: " + bond.getTenor());
-            benchmarkYieldLabel.setText("Benchmark Treasury Yield (%): " + DECIMAL_FORMAT.format(bond.getTreasuryYield() * 100));
-            spreadLabel.setText("Spread (Bps): " + SPREAD_FORMAT.format(bond.getSpread() * 10000));
-            updateChart(bond);
+            // A newly entered price wins; otherwise the yield is the input
+            boolean isPrice = priceChanged;
+            double value = isPrice
+                    ? validateDouble(priceField.getText(), "Price")
+                    : validateDouble(ytmField.getText(), "YTM") / 100;
 
+            cancelCalculation();
             priceChanged = false;
             ytmChanged = false;
-        } catch (NumberFormatException ex) {
-            clearPreviousResults();
-            resultLabel.setText("Please enter valid numeric values.");
+            analyticsWorker = new AnalyticsWorker(generation, faceValue, couponRate, maturityDate, couponFrequency, settlementDate, value, isPrice);
+            analyticsWorker.execute();
         } catch (IllegalArgumentException ex) {
+            if (live) {
+                return;
+            }
             clearPreviousResults();
             resultLabel.setText(ex.getMessage());
-        } catch (Exception ex) {
-            clearPreviousResults();
-            resultLabel.setText(ex.getMessage());
+        }
+    }
+
+    private void showAnalytics(Bond bond, boolean fromPrice) {
+        updatingFields = true;
+        try {
+            if (fromPrice) {
+                ytmField.setText(String.valueOf(DECIMAL_FORMAT.format(bond.getYieldToMaturity() * 100)));
+            } else {
+                priceField.setText(String.valueOf(DECIMAL_FORMAT.format(bond.getPrice())));
+            }
+        } finally {
+            updatingFields = false;
+        }
+
+        macDurationLabel.setText("Macaulay Duration: " + DECIMAL_FORMAT.format(bond.getMacaulayDuration()));
+        modDurationLabel.setText("Modified Duration: " + DECIMAL_FORMAT.format(bond.getModifiedDuration()));
+        convexityLabel.setText("Convexity: " + DECIMAL_FORMAT.format(bond.getConvexity()));
+        tenorLabel.setText("Bond's Tenor: " + bond.getTenor());
+        benchmarkYieldLabel.setText("Benchmark Treasury Yield (%): loading...");
+        spreadLabel.setText("Spread (Bps): loading...");
+    }
+
+    private void showBenchmark(Bond bond) {
+        benchmarkYieldLabel.setText("Benchmark Treasury Yield (%): " + DECIMAL_FORMAT.format(bond.getTreasuryYield() * 100));
+        spreadLabel.setText("Spread (Bps): " + SPREAD_FORMAT.format(bond.getSpread() * 10000));
+    }
+
+    // Price/yield, durations, convexity and the chart series, computed off the event thread
+    private class AnalyticsWorker extends SwingWorker<Bond, Void> {
+        private final int request;
+        private final double faceValue;
+        private final double couponRate;
+        private final LocalDate maturityDate;
+        private final int couponFrequency;
+        private final LocalDate settlementDate;
+        private final double value;
+        private final boolean isPrice;
+        private PriceCurve curve;
+
+        AnalyticsWorker(int request, double faceValue, double couponRate, LocalDate maturityDate, int couponFrequency, LocalDate settlementDate, double value, boolean isPrice) {
+            this.request = request;
+            this.faceValue = faceValue;
+            this.couponRate = couponRate;
+            this.maturityDate = maturityDate;
+            this.couponFrequency = couponFrequency;
+            this.settlementDate = settlementDate;
+            this.value = value;
+            this.isPrice = isPrice;
+        }
+
+        @Override
+        protected Bond doInBackground() {
+            Bond result = Bond.withoutBenchmark(faceValue, couponRate, maturityDate, couponFrequency, settlementDate, value, isPrice);
+            if (!isCancelled()) {
+                curve = PriceCurveEngine.reprice(result);
+            }
+            return result;
+        }
+
+        @Override
+        protected void done() {
+            if (isCancelled() || request != generation) {
+                return;
+            }
+            try {
+                bond = get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                clearPreviousResults();
+                resultLabel.setText(e.getCause().getMessage());
+                return;
+            }
+            showAnalytics(bond, isPrice);
+            updateChart(curve);
+
+            benchmarkWorker = new BenchmarkWorker(request, bond);
+            benchmarkWorker.execute();
+        }
+    }
+
+    // Benchmark treasury yield from the settlement date's curve, which may need FRED
+    private class BenchmarkWorker extends SwingWorker<Double, Void> {
+        private final int request;
+        private final Bond bond;
+
+        BenchmarkWorker(int request, Bond bond) {
+            this.request = request;
+            this.bond = bond;
+        }
+
+        @Override
+        protected Double doInBackground() {
+            YieldCurve curve = TreasuryMarketData.getDefault().getCurve(bond.getSettlementDate());
+            return curve == null ? null : bond.benchmarkYield(curve);
+        }
+
+        @Override
+        protected void done() {
+            if (isCancelled() || request != generation) {
+                return;
+            }
+            Double treasuryYield;
+            try {
+                treasuryYield = get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                treasuryYield = null;
+            }
+            if (treasuryYield == null) {
+                benchmarkYieldLabel.setText("Benchmark Treasury Yield (%): unavailable");
+                spreadLabel.setText("Spread (Bps): unavailable");
+                return;
+            }
+            bond.applyBenchmark(treasuryYield);
+            showBenchmark(bond);
         }
     }
     
@@ -301,9 +489,8 @@ public class BondViewer extends JFrame {
         tenorLabel.setText("Bond's Tenor: ");
         benchmarkYieldLabel.setText("Benchmark Treasury Yield (%)");
         spreadLabel.setText("Spread (Bps): ");
-        chartPanel.removeAll();
-        chartPanel.revalidate();
-        chartPanel.repaint();
+        priceYieldChart.setPriceCurve(null);
+        priceYieldChart.setVisible(false);
     }
     
     private double validateDouble(String input, String fieldName) throws IllegalArgumentException {
@@ -329,18 +516,17 @@ public class BondViewer extends JFrame {
         }
     }
     
-    private void updateChart(Bond bond) {
-    	chartPanel.removeAll();
-
-        PriceYieldChart chart = new PriceYieldChart("Price-Yield Chart", bond);
-        chart.setSize(800, 400);
-        chartPanel.add(chart.getContentPane(), BorderLayout.CENTER);
-
-        chartPanel.revalidate();
-        chartPanel.repaint();
+    private void updateChart(PriceCurve curve) {
+        priceYieldChart.setPriceCurve(curve);
+        priceYieldChart.setVisible(true);
     }
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        // java -jar yield-analysis.jar --batch <input.csv> <output.csv> [threads] runs without a window
+        if (args.length > 0 && args[0].equals("--batch")) {
+            BondCsvBatch.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
         JFrame frame = new BondViewer();
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         frame.setVisible(true);
@@ -0,0 +1,118 @@
+package yieldanalysis;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+// A fixed-coupon bond with an embedded call (the issuer may redeem it early) or put (the holder
+// may sell it back early), priced on a HullWhiteLattice by CallableBondEngine.
+//
+// The option schedule is a list of dates and strike prices, in the same units as the face
+// value (1000 is par on a 1000 bond): from each date on, up to the next one, the option can be
+// exercised at any time at that strike plus accrued interest. Coupons accrue ACT/ACT.
+public class CallableBond {
+
+    public enum OptionType {
+        // The issuer may redeem
+        CALL,
+        // The holder may sell back
+        PUT
+    }
+
+    private final double faceValue;
+    private final double couponRate;
+    private final LocalDate maturityDate;
+    private final int couponFrequency;
+    private final LocalDate settlementDate;
+    private final OptionType optionType;
+    private final LocalDate[] exerciseDates;
+    private final double[] strikes;
+    private final CashFlowSchedule schedule;
+
+    public CallableBond(double faceValue, double couponRate, LocalDate maturityDate, int couponFrequency, LocalDate settlementDate,
+            OptionType optionType, LocalDate[] exerciseDates, double[] strikes) {
+        if (exerciseDates.length != strikes.length) {
+            throw new IllegalArgumentException("Every exercise date needs a strike.");
+        }
+        for (int k = 1; k < exerciseDates.length; k++) {
+            if (!exerciseDates[k].isAfter(exerciseDates[k - 1])) {
+                throw new IllegalArgumentException("Exercise dates must be in increasing order.");
+            }
+        }
+        for (double strike : strikes) {
+            if (!(strike > 0)) {
+                throw new IllegalArgumentException("Strikes must be positive.");
+            }
+        }
+        this.schedule = new CashFlowSchedule(faceValue, couponRate, maturityDate, couponFrequency, settlementDate,
+                CashFlowSchedule.DayCount.ACT_ACT);
+        this.faceValue = faceValue;
+        this.couponRate = couponRate;
+        this.maturityDate = maturityDate;
+        this.couponFrequency = couponFrequency;
+        this.settlementDate = settlementDate;
+        this.optionType = optionType;
+        this.exerciseDates = exerciseDates.clone();
+        this.strikes = strikes.clone();
+    }
+
+    // Callable (or putable) at par from firstExerciseDate to maturity
+    public static CallableBond atPar(double faceValue, double couponRate, LocalDate maturityDate, int couponFrequency,
+            LocalDate settlementDate, OptionType optionType, LocalDate firstExerciseDate) {
+        return new CallableBond(faceValue, couponRate, maturityDate, couponFrequency, settlementDate, optionType,
+                new LocalDate[] {firstExerciseDate}, new double[] {faceValue});
+    }
+
+    public CashFlowSchedule getCashFlowSchedule() {
+        return schedule;
+    }
+
+    public int getExerciseCount() {
+        return exerciseDates.length;
+    }
+
+    public LocalDate getExerciseDate(int k) {
+        return exerciseDates[k];
+    }
+
+    public double getStrike(int k) {
+        return strikes[k];
+    }
+
+    public double getFaceValue() {
+        return faceValue;
+    }
+
+    public double getCouponRate() {
+        return couponRate;
+    }
+
+    public LocalDate getMaturityDate() {
+        return maturityDate;
+    }
+
+    public int getCouponFrequency() {
+        return couponFrequency;
+    }
+
+    public LocalDate getSettlementDate() {
+        return settlementDate;
+    }
+
+    public OptionType getOptionType() {
+        return optionType;
+    }
+
+    @Override
+    public String toString() {
+        return "CallableBond{" +
+                "faceValue=" + faceValue +
+                ", couponRate=" + couponRate +
+                ", maturityDate=" + maturityDate +
+                ", couponFrequency=" + couponFrequency +
+                ", settlementDate=" + settlementDate +
+                ", optionType=" + optionType +
+                ", exerciseDates=" + Arrays.toString(exerciseDates) +
+                ", strikes=" + Arrays.toString(strikes) +
+                '}';
+    }
+}
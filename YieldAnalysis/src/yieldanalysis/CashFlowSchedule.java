@@ -0,0 +1,250 @@
+package yieldanalysis;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+// The cash flows a bond still has to pay after settlement, built once per bond.
+//
+// Coupon dates are rolled back from maturity in steps of 12 / couponFrequency months, so the
+// next coupon is usually less than a whole period away and part of the current coupon has
+// already accrued to the seller. For every payment the schedule keeps its date, its time from
+// settlement in coupon periods (firstPeriod, firstPeriod + 1, ...), its time in years under
+// the day-count convention, and its amount, all in primitive arrays for the engines that
+// discount the flows one by one.
+//
+// Prices here follow the street convention: the yield discounts over coupon periods, with the
+// first period shortened by the accrued fraction. The coupons are level, so pricing at a
+// yield doesn't have to walk the arrays; AnnuityFormula does it in closed form.
+public class CashFlowSchedule {
+
+    public enum DayCount {
+        // US 30/360 (bond basis)
+        THIRTY_360,
+        // Actual days over actual days in the coupon period (ICMA); US treasuries use this
+        ACT_ACT,
+        ACT_365
+    }
+
+    private final double faceValue;
+    private final double couponRate;
+    private final int couponFrequency;
+    private final DayCount dayCount;
+    private final LocalDate settlementDate;
+    private final LocalDate maturityDate;
+    private final LocalDate previousCouponDate;
+
+    private final long[] paymentDates;
+    private final double[] periods;
+    private final double[] yearFractions;
+    private final double[] amounts;
+
+    private final double accruedFraction;
+    private final double accruedInterest;
+
+    public CashFlowSchedule(double faceValue, double couponRate, LocalDate maturityDate, int couponFrequency, LocalDate settlementDate, DayCount dayCount) {
+        if (couponFrequency != 1 && couponFrequency != 2 && couponFrequency != 4 && couponFrequency != 12) {
+            throw new IllegalArgumentException("Coupon Frequency must be 1, 2, 4 or 12.");
+        }
+        if (settlementDate.isAfter(maturityDate)) {
+            throw new IllegalArgumentException("Settlement Date cannot be later than Maturity Date.");
+        }
+        this.faceValue = faceValue;
+        this.couponRate = couponRate;
+        this.couponFrequency = couponFrequency;
+        this.dayCount = dayCount;
+        this.settlementDate = settlementDate;
+        this.maturityDate = maturityDate;
+
+        int n = couponsRemaining(settlementDate, maturityDate, couponFrequency);
+        this.previousCouponDate = couponDate(maturityDate, couponFrequency, n);
+        this.accruedFraction = accruedFraction(settlementDate, maturityDate, couponFrequency, n, dayCount);
+        double couponPayment = faceValue * couponRate / couponFrequency;
+        this.accruedInterest = couponPayment * accruedFraction;
+
+        double firstPeriod = 1 - accruedFraction;
+        paymentDates = new long[n];
+        periods = new double[n];
+        yearFractions = new double[n];
+        amounts = new double[n];
+        for (int k = 0; k < n; k++) {
+            LocalDate paymentDate = couponDate(maturityDate, couponFrequency, n - 1 - k);
+            paymentDates[k] = paymentDate.toEpochDay();
+            periods[k] = firstPeriod + k;
+            yearFractions[k] = yearFraction(settlementDate, paymentDate, periods[k], couponFrequency, dayCount);
+            amounts[k] = k == n - 1 ? couponPayment + faceValue : couponPayment;
+        }
+    }
+
+    // Coupon dates strictly after settlement; maturity itself counts
+    static int couponsRemaining(LocalDate settlementDate, LocalDate maturityDate, int couponFrequency) {
+        int n = (int) (ChronoUnit.MONTHS.between(settlementDate, maturityDate) / (12 / couponFrequency));
+        while (n > 0 && !couponDate(maturityDate, couponFrequency, n - 1).isAfter(settlementDate)) {
+            n--;
+        }
+        while (couponDate(maturityDate, couponFrequency, n).isAfter(settlementDate)) {
+            n++;
+        }
+        return n;
+    }
+
+    // The coupon date periodsBeforeMaturity periods before maturity. Always counted from maturity,
+    // so month-end clamping (Aug 31 -> Feb 28) doesn't drift into the later dates.
+    static LocalDate couponDate(LocalDate maturityDate, int couponFrequency, int periodsBeforeMaturity) {
+        return maturityDate.minusMonths((long) periodsBeforeMaturity * (12 / couponFrequency));
+    }
+
+    // Share of the current coupon period that has accrued at settlement, between 0 and 1;
+    // n is couponsRemaining(settlementDate, maturityDate, couponFrequency)
+    static double accruedFraction(LocalDate settlementDate, LocalDate maturityDate, int couponFrequency, int n, DayCount dayCount) {
+        if (n == 0) {
+            return 0.0;
+        }
+        LocalDate previousCoupon = couponDate(maturityDate, couponFrequency, n);
+        LocalDate nextCoupon = couponDate(maturityDate, couponFrequency, n - 1);
+        double fraction;
+        switch (dayCount) {
+            case THIRTY_360:
+                fraction = days360(previousCoupon, settlementDate) * couponFrequency / 360.0;
+                break;
+            case ACT_365:
+                fraction = ChronoUnit.DAYS.between(previousCoupon, settlementDate) * couponFrequency / 365.0;
+                break;
+            default:
+                fraction = (double) ChronoUnit.DAYS.between(previousCoupon, settlementDate)
+                        / ChronoUnit.DAYS.between(previousCoupon, nextCoupon);
+        }
+        return Math.min(Math.max(fraction, 0.0), 1.0);
+    }
+
+    // Time from settlement to the payment in years under the convention. ACT/ACT counts every
+    // coupon period as exactly 1 / couponFrequency years.
+    private static double yearFraction(LocalDate settlementDate, LocalDate paymentDate, double periods, int couponFrequency, DayCount dayCount) {
+        switch (dayCount) {
+            case THIRTY_360:
+                return days360(settlementDate, paymentDate) / 360.0;
+            case ACT_365:
+                return ChronoUnit.DAYS.between(settlementDate, paymentDate) / 365.0;
+            default:
+                return periods / couponFrequency;
+        }
+    }
+
+    static int days360(LocalDate from, LocalDate to) {
+        int d1 = Math.min(from.getDayOfMonth(), 30);
+        int d2 = to.getDayOfMonth();
+        if (d2 == 31 && d1 == 30) {
+            d2 = 30;
+        }
+        return 360 * (to.getYear() - from.getYear()) + 30 * (to.getMonthValue() - from.getMonthValue()) + d2 - d1;
+    }
+
+    // Price including accrued interest at the annual yield
+    public double dirtyPrice(double yieldToMaturity) {
+        return AnnuityFormula.price(faceValue, couponRate, couponFrequency, size(), getFirstPeriod(), yieldToMaturity);
+    }
+
+    // Quoted price: the dirty price less accrued interest
+    public double cleanPrice(double yieldToMaturity) {
+        return dirtyPrice(yieldToMaturity) - accruedInterest;
+    }
+
+    // Price including accrued interest with every payment discounted off the zero curve instead
+    public double dirtyPrice(DiscountCurve curve) {
+        return curve.presentValue(this);
+    }
+
+    public double cleanPrice(DiscountCurve curve) {
+        return curve.presentValue(this) - accruedInterest;
+    }
+
+    // Yield to maturity at a quoted (clean) price, or NaN if there is none
+    public double yieldFromCleanPrice(double cleanPrice) {
+        SolverResult result = new SolverResult();
+        Bond.getYieldSolver().solve(this, cleanPrice + accruedInterest, YieldSolver.NO_GUESS, result);
+        return result.getYield();
+    }
+
+    // Dirty price, derivatives, durations and convexity at the yield in one pass
+    public void calculate(double yieldToMaturity, AnalyticsResult result) {
+        AnalyticsKernel.calculate(faceValue, couponRate, couponFrequency, size(), getFirstPeriod(), yieldToMaturity, result);
+    }
+
+    public int size() {
+        return amounts.length;
+    }
+
+    public LocalDate getPaymentDate(int i) {
+        return LocalDate.ofEpochDay(paymentDates[i]);
+    }
+
+    // Time to the payment in coupon periods
+    public double getPeriod(int i) {
+        return periods[i];
+    }
+
+    public double getYearFraction(int i) {
+        return yearFractions[i];
+    }
+
+    public double getAmount(int i) {
+        return amounts[i];
+    }
+
+    // The arrays themselves, for engines that discount every flow; callers must not change them
+    long[] paymentDates() {
+        return paymentDates;
+    }
+
+    double[] periods() {
+        return periods;
+    }
+
+    double[] yearFractions() {
+        return yearFractions;
+    }
+
+    double[] amounts() {
+        return amounts;
+    }
+
+    // Periods from settlement to the first payment: 1 on a coupon date, less in between
+    public double getFirstPeriod() {
+        return 1 - accruedFraction;
+    }
+
+    public double getAccruedFraction() {
+        return accruedFraction;
+    }
+
+    public double getAccruedInterest() {
+        return accruedInterest;
+    }
+
+    public LocalDate getPreviousCouponDate() {
+        return previousCouponDate;
+    }
+
+    public double getFaceValue() {
+        return faceValue;
+    }
+
+    public double getCouponRate() {
+        return couponRate;
+    }
+
+    public int getCouponFrequency() {
+        return couponFrequency;
+    }
+
+    public DayCount getDayCount() {
+        return dayCount;
+    }
+
+    public LocalDate getSettlementDate() {
+        return settlementDate;
+    }
+
+    public LocalDate getMaturityDate() {
+        return maturityDate;
+    }
+}
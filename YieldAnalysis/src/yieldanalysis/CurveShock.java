@@ -0,0 +1,83 @@
+package yieldanalysis;
+
+import java.util.Arrays;
+
+// A change to the yield curve, given as a shift (decimal) at each DGS tenor and linear in
+// maturity in between; flat beyond the 1 month and 30 year points.
+public class CurveShock {
+
+    private final String name;
+    private final double[] shifts;
+    private final YieldCurve curve;
+    private final boolean parallel;
+
+    // shifts are indexed by Tenor.ordinal()
+    public CurveShock(String name, double[] shifts) {
+        if (shifts.length != Tenor.count()) {
+            throw new IllegalArgumentException("A curve shock needs a shift for each of the " + Tenor.count() + " tenors.");
+        }
+        this.name = name;
+        this.shifts = shifts.clone();
+        this.curve = YieldCurve.fromTreasuryYields(this.shifts, YieldCurve.Interpolation.LINEAR);
+        boolean same = true;
+        for (double shift : shifts) {
+            same &= shift == shifts[0];
+        }
+        this.parallel = same;
+    }
+
+    public static CurveShock parallel(double shift) {
+        double[] shifts = new double[Tenor.count()];
+        Arrays.fill(shifts, shift);
+        return new CurveShock(String.format("parallel %+.0fbp", shift * 10000), shifts);
+    }
+
+    // Steepener when longEnd > shortEnd: the shift moves in a straight line (in maturity) from
+    // shortEnd at the 1 month point to longEnd at 30 years
+    public static CurveShock twist(double shortEnd, double longEnd) {
+        double first = Tenor.at(0).getYears();
+        double last = Tenor.at(Tenor.count() - 1).getYears();
+        double[] shifts = new double[Tenor.count()];
+        for (int i = 0; i < shifts.length; i++) {
+            shifts[i] = shortEnd + (longEnd - shortEnd) * (Tenor.at(i).getYears() - first) / (last - first);
+        }
+        return new CurveShock(String.format("twist %+.0f/%+.0fbp", shortEnd * 10000, longEnd * 10000), shifts);
+    }
+
+    // wings at the 1 month and 30 year points, belly at 5 years, linear in between
+    public static CurveShock butterfly(double wings, double belly) {
+        double first = Tenor.at(0).getYears();
+        double middle = Tenor.FIVE_YEAR.getYears();
+        double last = Tenor.at(Tenor.count() - 1).getYears();
+        double[] shifts = new double[Tenor.count()];
+        for (int i = 0; i < shifts.length; i++) {
+            double years = Tenor.at(i).getYears();
+            shifts[i] = years <= middle
+                    ? wings + (belly - wings) * (years - first) / (middle - first)
+                    : belly + (wings - belly) * (years - middle) / (last - middle);
+        }
+        return new CurveShock(String.format("butterfly %+.0f/%+.0fbp", wings * 10000, belly * 10000), shifts);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public double shiftAt(double years) {
+        return curve.yieldAt(years);
+    }
+
+    public double getShift(Tenor tenor) {
+        return shifts[tenor.ordinal()];
+    }
+
+    // The same shift everywhere, so a bond's whole yield moves by it
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,139 @@
+package yieldanalysis;
+
+// Discount factors for one curve date, bootstrapped from the treasury par yields.
+//
+// The DGS series are par yields on a bond-equivalent (semi-annual) basis. Up to six months a
+// bill pays once, so the discount factor is 1 / (1 + y * t). From there on the par curve is read
+// every half year, and each point is the par bond paying y / 2 every six months that prices at
+// 1: the discount factor for its last payment is whatever the earlier (already known) ones leave
+// over. Between the nodes log discount factors are linear, i.e. forward rates are flat, and past
+// the last node the last forward rate carries on.
+//
+// Every node falls on a whole month, so once bootstrapped the curve is kept as the discount
+// factor at each month and the flat forward rate over the month after it. A lookup is then an
+// array index and one exp, with no search, and still exact. TreasuryMarketData keeps one curve
+// per date, built on first use.
+public class DiscountCurve {
+
+    private static final double HALF_YEAR = 0.5;
+    static final int GRID_STEPS_PER_YEAR = 12;
+
+    // Indexed by month: the discount factor at the month and its log, and the forward rate up
+    // to the next month (the last one carries on past the grid)
+    private final double[] gridDiscount;
+    private final double[] gridLogDiscount;
+    private final double[] gridForward;
+
+    private DiscountCurve(double[] times, double[] logDiscount) {
+        int last = (int) Math.round(times[times.length - 1] * GRID_STEPS_PER_YEAR);
+        gridDiscount = new double[last + 1];
+        gridLogDiscount = new double[last + 1];
+        gridForward = new double[last + 1];
+        for (int i = 0; i <= last; i++) {
+            gridLogDiscount[i] = logDiscountAt(times, logDiscount, (double) i / GRID_STEPS_PER_YEAR);
+            gridDiscount[i] = Math.exp(gridLogDiscount[i]);
+        }
+        for (int i = 0; i < last; i++) {
+            gridForward[i] = (gridLogDiscount[i] - gridLogDiscount[i + 1]) * GRID_STEPS_PER_YEAR;
+        }
+        gridForward[last] = gridForward[last - 1];
+    }
+
+    public static DiscountCurve bootstrap(YieldCurve parCurve) {
+        double longest = Tenor.at(Tenor.count() - 1).getYears();
+        int halfYears = (int) Math.round(longest / HALF_YEAR);
+        double[] times = new double[halfYears + 2];
+        double[] logDiscount = new double[halfYears + 2];
+
+        // Bills: 1 and 3 months at a simple rate
+        int node = 0;
+        times[node] = Tenor.ONE_MONTH.getYears();
+        logDiscount[node++] = -Math.log1p(parCurve.yieldAt(times[0]) * times[0]);
+        times[node] = Tenor.THREE_MONTH.getYears();
+        logDiscount[node++] = -Math.log1p(parCurve.yieldAt(times[1]) * times[1]);
+
+        // Every half year from 6 months out: sum of the earlier half-year discount factors
+        double annuity = 0.0;
+        for (int k = 1; k <= halfYears; k++) {
+            double t = k * HALF_YEAR;
+            double coupon = parCurve.yieldAt(t) / 2;
+            double discount = (1 - coupon * annuity) / (1 + coupon);
+            if (!(discount > 0)) {
+                throw new IllegalArgumentException("Par yields imply a non-positive discount factor at " + t + " years.");
+            }
+            annuity += discount;
+            times[node] = t;
+            logDiscount[node++] = Math.log(discount);
+        }
+        return new DiscountCurve(times, logDiscount);
+    }
+
+    public double discountFactor(double years) {
+        if (years <= 0) {
+            return 1.0;
+        }
+        int i = cell(years);
+        return gridDiscount[i] * Math.exp(-gridForward[i] * (years - (double) i / GRID_STEPS_PER_YEAR));
+    }
+
+    // Continuously compounded zero rate
+    public double zeroRate(double years) {
+        if (years <= 0) {
+            return gridForward[0];
+        }
+        int i = cell(years);
+        return -(gridLogDiscount[i] - gridForward[i] * (years - (double) i / GRID_STEPS_PER_YEAR)) / years;
+    }
+
+    // Instantaneous forward rate, flat over each month
+    public double forwardRate(double years) {
+        return gridForward[years <= 0 ? 0 : cell(years)];
+    }
+
+    // Present value of the schedule's payments (the dirty price) discounted off the curve
+    public double presentValue(CashFlowSchedule schedule) {
+        double[] times = schedule.yearFractions();
+        double[] amounts = schedule.amounts();
+        double value = 0.0;
+        for (int k = 0; k < amounts.length; k++) {
+            value += amounts[k] * discountFactor(times[k]);
+        }
+        return value;
+    }
+
+    // Longest time on the grid; beyond it the last forward rate is extrapolated
+    public double getGridHorizon() {
+        return (double) (gridDiscount.length - 1) / GRID_STEPS_PER_YEAR;
+    }
+
+    private int cell(double years) {
+        return (int) Math.min(years * GRID_STEPS_PER_YEAR, gridDiscount.length - 1);
+    }
+
+    // Log discount factor between the bootstrapped nodes
+    private static double logDiscountAt(double[] times, double[] logDiscount, double years) {
+        if (years <= 0) {
+            return 0.0;
+        }
+        if (years <= times[0]) {
+            return logDiscount[0] * years / times[0];
+        }
+        int last = times.length - 1;
+        if (years >= times[last]) {
+            double forward = (logDiscount[last] - logDiscount[last - 1]) / (times[last] - times[last - 1]);
+            return logDiscount[last] + forward * (years - times[last]);
+        }
+        int low = 0;
+        int high = last;
+        while (high - low > 1) {
+            int mid = (low + high) >>> 1;
+            if (times[mid] <= years) {
+                low = mid;
+            } else {
+                high = mid;
+            }
+        }
+        double weight = (years - times[low]) / (times[high] - times[low]);
+        return logDiscount[low] + weight * (logDiscount[high] - logDiscount[low]);
+    }
+}
@@ -0,0 +1,93 @@
+package yieldanalysis;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+// Thin client for the FRED series/observations endpoint. The base URL can be pointed at a
+// local stand-in server (-Dfred.baseUrl=http://localhost:8080/fred) that replays canned XML.
+public class FredClient {
+
+    public static final String DEFAULT_BASE_URL = "https://api.stlouisfed.org/fred";
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final int TIMEOUT_MILLIS = 10_000;
+
+    // Shared with the range requests in TreasuryCurvePrefetcher
+    static final Metrics.Counter REQUESTS = Metrics.counter("fred.requests");
+    static final Metrics.Counter FAILURES = Metrics.counter("fred.failures");
+    static final Metrics.Distribution LATENCY = Metrics.distribution("fred.request_latency");
+
+    private final String baseUrl;
+    private final String apiKey;
+
+    public FredClient() {
+        this(System.getProperty("fred.baseUrl", DEFAULT_BASE_URL), defaultApiKey());
+    }
+
+    public FredClient(String baseUrl, String apiKey) {
+        if (baseUrl == null || baseUrl.isEmpty()) {
+            throw new IllegalArgumentException("FRED base URL cannot be empty.");
+        }
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.apiKey = apiKey == null ? "" : apiKey;
+    }
+
+    // The key is read from -Dfred.apiKey, falling back to the FRED_API_KEY environment variable
+    private static String defaultApiKey() {
+        String key = System.getProperty("fred.apiKey");
+        return key != null ? key : System.getenv("FRED_API_KEY");
+    }
+
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    // Yield (as a decimal) observed on the given day, or null if FRED has no value for it
+    public Double fetchYield(String seriesId, LocalDate date) throws IOException {
+        MetricsEvents.FredRequest event = new MetricsEvents.FredRequest();
+        event.begin();
+        long start = Metrics.startTime();
+        boolean succeeded = false;
+        FredObservations observations = new FredObservations();
+        try {
+            URLConnection connection = new URL(observationsUrl(seriesId, date, date)).openConnection();
+            connection.setConnectTimeout(TIMEOUT_MILLIS);
+            connection.setReadTimeout(TIMEOUT_MILLIS);
+            try (InputStream in = connection.getInputStream()) {
+                FredObservationParser.parse(in, observations);
+            }
+            succeeded = true;
+        } finally {
+            recordRequest(event, start, seriesId, date, date, succeeded);
+        }
+        // Weekends and holidays come back with no observations, or with "." as the value
+        return observations.size() == 0 ? null : observations.yieldAt(0);
+    }
+
+    static void recordRequest(MetricsEvents.FredRequest event, long start, String seriesId, LocalDate from, LocalDate to, boolean succeeded) {
+        REQUESTS.increment();
+        LATENCY.recordSince(start);
+        if (!succeeded) {
+            FAILURES.increment();
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.seriesId = seriesId;
+            event.start = from.toString();
+            event.end = to.toString();
+            event.succeeded = succeeded;
+            event.commit();
+        }
+    }
+
+    String observationsUrl(String seriesId, LocalDate start, LocalDate end) {
+        return baseUrl + "/series/observations?series_id=" + seriesId +
+                "&observation_start=" + start.format(DATE_FORMAT) +
+                "&observation_end=" + end.format(DATE_FORMAT) +
+                "&api_key=" + apiKey + "&file_type=xml";
+    }
+}
@@ -0,0 +1,84 @@
+package yieldanalysis;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.DateTimeException;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+// Streaming (StAX) reader for FRED series/observations responses. Observations are pulled
+// straight from the response stream into a FredObservations, without buffering the document
+// or building a DOM. One factory is shared; creating readers from it is thread-safe.
+final class FredObservationParser {
+
+    private static final XMLInputFactory FACTORY = createFactory();
+
+    private FredObservationParser() {
+    }
+
+    private static XMLInputFactory createFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+        return factory;
+    }
+
+    // Appends every observation with a value to observations; "." (no value) is skipped
+    static void parse(InputStream in, FredObservations observations) throws IOException {
+        XMLStreamReader reader = null;
+        try {
+            reader = FACTORY.createXMLStreamReader(in, "UTF-8");
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT && "observation".equals(reader.getLocalName())) {
+                    String value = reader.getAttributeValue(null, "value");
+                    if (value == null || value.isEmpty() || value.equals(".")) {
+                        continue;
+                    }
+                    String date = reader.getAttributeValue(null, "date");
+                    observations.add(epochDay(date), Double.parseDouble(value) / 100);
+                }
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Unreadable FRED response", e);
+        } catch (NumberFormatException | DateTimeException | NullPointerException e) {
+            throw new IOException("Unreadable FRED observation", e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException e) {
+                    // Nothing left to read; the caller closes the stream itself
+                }
+            }
+        }
+    }
+
+    // FRED dates are always yyyy-MM-dd; reading the digits directly is much cheaper than
+    // going through a DateTimeFormatter for every observation
+    static long epochDay(String date) {
+        if (date.length() != 10 || date.charAt(4) != '-' || date.charAt(7) != '-') {
+            throw new DateTimeException("Unexpected FRED date: " + date);
+        }
+        int year = digits(date, 0, 4);
+        int month = digits(date, 5, 7);
+        int day = digits(date, 8, 10);
+        return LocalDate.of(year, month, day).toEpochDay();
+    }
+
+    private static int digits(String text, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new DateTimeException("Unexpected FRED date: " + text);
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
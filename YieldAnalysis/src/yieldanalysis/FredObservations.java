@@ -0,0 +1,38 @@
+package yieldanalysis;
+
+import java.util.Arrays;
+
+// Observations of one FRED series as parallel primitive arrays: epoch day and yield (as a decimal).
+// Days FRED reports as "." (no value) are left out.
+final class FredObservations {
+
+    private long[] dates = new long[64];
+    private double[] yields = new double[64];
+    private int size;
+
+    void add(long epochDay, double yield) {
+        if (size == dates.length) {
+            dates = Arrays.copyOf(dates, size * 2);
+            yields = Arrays.copyOf(yields, size * 2);
+        }
+        dates[size] = epochDay;
+        yields[size] = yield;
+        size++;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long dateAt(int index) {
+        return dates[index];
+    }
+
+    double yieldAt(int index) {
+        return yields[index];
+    }
+}
@@ -0,0 +1,171 @@
+package yieldanalysis;
+
+// Hull-White trinomial short-rate tree, fitted to one date's discount curve.
+//
+// The short rate is r = alpha(t) + x, where x mean-reverts to zero at speed meanReversion with
+// normal volatility volatility. x lives on a grid of spacing dx = sigma * sqrt(3 * dt); from
+// node j the tree branches to j + 1, j and j - 1, except at the outermost nodes +/-jMax, which
+// branch back inwards so the tree stops widening. alpha is then fitted step by step (forward
+// induction over the Arrow-Debreu prices) so that the tree prices every zero-coupon bond on
+// the grid exactly.
+//
+// Nothing here depends on a bond, so one lattice serves every bond settling on its date. It
+// is immutable once built and shared between threads; pricing works in scratch arrays of
+// width() doubles supplied by the caller.
+public class HullWhiteLattice {
+
+    private final double meanReversion;
+    private final double volatility;
+    private final double dt;
+    private final int steps;
+    private final int jMax;
+    private final double dx;
+
+    // Indexed by step
+    private final double[] alpha;
+    // Indexed by node, k = j + jMax: branching probabilities to mid + 1, mid and mid - 1,
+    // and exp(-j * dx * dt), the node's part of the one-step discount factor
+    private final double[] pUp;
+    private final double[] pMid;
+    private final double[] pDown;
+    private final int[] mid;
+    private final double[] nodeDiscount;
+
+    public HullWhiteLattice(DiscountCurve curve, double meanReversion, double volatility, double horizonYears, int stepsPerYear) {
+        if (!(meanReversion > 0) || !(volatility > 0)) {
+            throw new IllegalArgumentException("Mean reversion and volatility must be positive.");
+        }
+        if (!(horizonYears > 0) || stepsPerYear < 1) {
+            throw new IllegalArgumentException("The lattice needs a positive horizon and at least one step a year.");
+        }
+        this.meanReversion = meanReversion;
+        this.volatility = volatility;
+        this.dt = 1.0 / stepsPerYear;
+        this.steps = (int) Math.ceil(horizonYears * stepsPerYear);
+
+        double m = Math.expm1(-meanReversion * dt);
+        double variance = volatility * volatility * -Math.expm1(-2 * meanReversion * dt) / (2 * meanReversion);
+        this.dx = Math.sqrt(3 * variance);
+        this.jMax = (int) Math.ceil(0.184 / -m);
+
+        int width = 2 * jMax + 1;
+        pUp = new double[width];
+        pMid = new double[width];
+        pDown = new double[width];
+        mid = new int[width];
+        nodeDiscount = new double[width];
+        for (int k = 0; k < width; k++) {
+            int j = k - jMax;
+            double jm = j * m;
+            if (j == jMax) {
+                // Branches to j, j - 1, j - 2
+                mid[k] = k - 1;
+                pUp[k] = 7.0 / 6 + (jm * jm + 3 * jm) / 2;
+                pMid[k] = -1.0 / 3 - jm * jm - 2 * jm;
+                pDown[k] = 1.0 / 6 + (jm * jm + jm) / 2;
+            } else if (j == -jMax) {
+                // Branches to j + 2, j + 1, j
+                mid[k] = k + 1;
+                pUp[k] = 1.0 / 6 + (jm * jm - jm) / 2;
+                pMid[k] = -1.0 / 3 - jm * jm + 2 * jm;
+                pDown[k] = 7.0 / 6 + (jm * jm - 3 * jm) / 2;
+            } else {
+                mid[k] = k;
+                pUp[k] = 1.0 / 6 + (jm * jm + jm) / 2;
+                pMid[k] = 2.0 / 3 - jm * jm;
+                pDown[k] = 1.0 / 6 + (jm * jm - jm) / 2;
+            }
+            nodeDiscount[k] = Math.exp(-j * dx * dt);
+        }
+
+        alpha = new double[steps];
+        calibrate(curve);
+    }
+
+    // Forward induction: q holds the Arrow-Debreu prices of the nodes at step i
+    private void calibrate(DiscountCurve curve) {
+        int width = width();
+        double[] q = new double[width];
+        double[] next = new double[width];
+        q[jMax] = 1.0;
+        for (int i = 0; i < steps; i++) {
+            int from = jMax - Math.min(i, jMax);
+            int to = jMax + Math.min(i, jMax);
+            double sum = 0.0;
+            for (int k = from; k <= to; k++) {
+                sum += q[k] * nodeDiscount[k];
+            }
+            alpha[i] = Math.log(sum / curve.discountFactor((i + 1) * dt)) / dt;
+
+            double stepDiscount = Math.exp(-alpha[i] * dt);
+            int nextFrom = jMax - Math.min(i + 1, jMax);
+            int nextTo = jMax + Math.min(i + 1, jMax);
+            for (int k = nextFrom; k <= nextTo; k++) {
+                next[k] = 0.0;
+            }
+            for (int k = from; k <= to; k++) {
+                double value = q[k] * stepDiscount * nodeDiscount[k];
+                int c = mid[k];
+                next[c + 1] += value * pUp[k];
+                next[c] += value * pMid[k];
+                next[c - 1] += value * pDown[k];
+            }
+            double[] swap = q;
+            q = next;
+            next = swap;
+        }
+    }
+
+    // Width of the node arrays: nodes -jMax..jMax, at k = j + jMax
+    public int width() {
+        return 2 * jMax + 1;
+    }
+
+    public int steps() {
+        return steps;
+    }
+
+    public double getTimeStep() {
+        return dt;
+    }
+
+    public double getHorizon() {
+        return steps * dt;
+    }
+
+    public double getMeanReversion() {
+        return meanReversion;
+    }
+
+    public double getVolatility() {
+        return volatility;
+    }
+
+    // Lowest and highest node index in use at the step
+    int firstNode(int step) {
+        return jMax - Math.min(step, jMax);
+    }
+
+    int lastNode(int step) {
+        return jMax + Math.min(step, jMax);
+    }
+
+    int rootNode() {
+        return jMax;
+    }
+
+    double alpha(int step) {
+        return alpha[step];
+    }
+
+    double nodeOffset(int k) {
+        return (k - jMax) * dx;
+    }
+
+    // One step back: the value at node k of the step from the values of the next step, discounted
+    // at the node's rate plus stepDiscount = exp(-(alpha + spread) * dt)
+    double rollBack(int k, double[] nextValues, double stepDiscount) {
+        int c = mid[k];
+        return (pUp[k] * nextValues[c + 1] + pMid[k] * nextValues[c] + pDown[k] * nextValues[c - 1]) * stepDiscount * nodeDiscount[k];
+    }
+}
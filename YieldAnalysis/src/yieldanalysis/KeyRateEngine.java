@@ -0,0 +1,194 @@
+package yieldanalysis;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Key-rate durations at the ten DGS tenors, plus effective duration and convexity, from
+// finite differences.
+//
+// A key-rate bump raises the yield at one tenor and fades linearly to nothing at the
+// neighbouring tenors (flat beyond the first and last), and each cash flow is repriced at its
+// own bumped yield, as in ScenarioEngine. The bumps add up to a parallel shift, so the
+// key-rate durations add up to the effective duration. A cash flow only ever sits under the
+// bumps of the two tenors around its maturity, so all twenty key-rate revaluations (up and
+// down) come out of one walk over the schedule, touching each flow at most four times, into
+// scratch arrays that are reused from bond to bond. The parallel bumps for effective duration
+// and convexity use the closed form.
+public class KeyRateEngine {
+
+    public static final double DEFAULT_BUMP = 0.0001;
+
+    // Bonds per fork-join leaf
+    private static final int BATCH_SIZE = 64;
+
+    private static final double[] TENOR_YEARS = new double[Tenor.count()];
+
+    static {
+        for (int i = 0; i < Tenor.count(); i++) {
+            TENOR_YEARS[i] = Tenor.at(i).getYears();
+        }
+    }
+
+    private final double bump;
+
+    public KeyRateEngine() {
+        this(DEFAULT_BUMP);
+    }
+
+    public KeyRateEngine(double bump) {
+        if (!(bump > 0)) {
+            throw new IllegalArgumentException("The bump must be positive.");
+        }
+        this.bump = bump;
+    }
+
+    public KeyRateResult calculate(CashFlowSchedule schedule, double yieldToMaturity) {
+        KeyRateResult result = new KeyRateResult(1);
+        new Scratch().calculate(schedule, yieldToMaturity, result, 0);
+        return result;
+    }
+
+    // The portfolio must have been calculated; its yields are the starting point
+    public KeyRateResult calculate(BondPortfolio portfolio) {
+        return calculate(portfolio, ForkJoinPool.commonPool());
+    }
+
+    public KeyRateResult calculate(BondPortfolio portfolio, ForkJoinPool pool) {
+        KeyRateResult result = new KeyRateResult(portfolio.size());
+        if (portfolio.size() > 0) {
+            pool.invoke(new KeyRateTask(portfolio, result, 0, portfolio.size()));
+        }
+        return result;
+    }
+
+    // Per-thread working arrays for one bond at a time
+    private final class Scratch {
+        private final double[] up = new double[Tenor.count()];
+        private final double[] down = new double[Tenor.count()];
+        private final double[] keyRates = new double[Tenor.count()];
+
+        void calculate(CashFlowSchedule schedule, double ytm, KeyRateResult result, int bond) {
+            if (Double.isNaN(ytm)) {
+                Arrays.fill(keyRates, Double.NaN);
+                result.set(bond, Double.NaN, keyRates, Double.NaN, Double.NaN);
+                return;
+            }
+            Arrays.fill(up, 0.0);
+            Arrays.fill(down, 0.0);
+
+            int frequency = schedule.getCouponFrequency();
+            double[] periods = schedule.periods();
+            double[] yearFractions = schedule.yearFractions();
+            double[] amounts = schedule.amounts();
+            int last = Tenor.count() - 1;
+
+            double price = 0.0;
+            for (int k = 0; k < amounts.length; k++) {
+                double pv = amounts[k] * Math.exp(-periods[k] * Math.log1p(ytm / frequency));
+                price += pv;
+
+                double t = yearFractions[k];
+                if (t <= TENOR_YEARS[0]) {
+                    addBump(0, 1.0, amounts[k], periods[k], ytm, frequency, pv);
+                } else if (t >= TENOR_YEARS[last]) {
+                    addBump(last, 1.0, amounts[k], periods[k], ytm, frequency, pv);
+                } else {
+                    int j = segment(t);
+                    double weight = (t - TENOR_YEARS[j]) / (TENOR_YEARS[j + 1] - TENOR_YEARS[j]);
+                    addBump(j, 1.0 - weight, amounts[k], periods[k], ytm, frequency, pv);
+                    addBump(j + 1, weight, amounts[k], periods[k], ytm, frequency, pv);
+                }
+            }
+
+            for (int i = 0; i < keyRates.length; i++) {
+                keyRates[i] = -(up[i] - down[i]) / (2 * bump * price);
+            }
+            double priceUp = schedule.dirtyPrice(ytm + bump);
+            double priceDown = schedule.dirtyPrice(ytm - bump);
+            double effectiveDuration = -(priceUp - priceDown) / (2 * bump * price);
+            double effectiveConvexity = (priceUp + priceDown - 2 * price) / (bump * bump * price);
+            result.set(bond, price, keyRates, effectiveDuration, effectiveConvexity);
+        }
+
+        // Change in the flow's value when the tenor is bumped up and down, weighted by how much
+        // of that tenor's bump reaches the flow
+        private void addBump(int tenor, double weight, double amount, double periods, double ytm, int frequency, double pv) {
+            if (weight == 0.0) {
+                return;
+            }
+            double shift = weight * bump;
+            up[tenor] += amount * Math.exp(-periods * Math.log1p((ytm + shift) / frequency)) - pv;
+            down[tenor] += amount * Math.exp(-periods * Math.log1p((ytm - shift) / frequency)) - pv;
+        }
+    }
+
+    // Index of the tenor starting the segment that holds years, for the first < years < the last
+    private static int segment(double years) {
+        int low = 0;
+        int high = TENOR_YEARS.length - 1;
+        while (high - low > 1) {
+            int mid = (low + high) >>> 1;
+            if (TENOR_YEARS[mid] <= years) {
+                low = mid;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private class KeyRateTask extends RecursiveAction {
+        private final BondPortfolio portfolio;
+        private final KeyRateResult result;
+        private final int from;
+        private final int to;
+
+        KeyRateTask(BondPortfolio portfolio, KeyRateResult result, int from, int to) {
+            this.portfolio = portfolio;
+            this.result = result;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= BATCH_SIZE) {
+                Scratch scratch = new Scratch();
+                for (int bond = from; bond < to; bond++) {
+                    scratch.calculate(portfolio.getCashFlowSchedule(bond), portfolio.getYieldToMaturity(bond), result, bond);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new KeyRateTask(portfolio, result, from, mid), new KeyRateTask(portfolio, result, mid, to));
+        }
+    }
+
+    public static void main(String[] args) {
+        BondPortfolio portfolio = new BondPortfolio();
+        LocalDate settlement = LocalDate.of(2024, 5, 20);
+        int[] frequencies = {1, 2, 4, 12};
+        for (int i = 0; i < 50_000; i++) {
+            portfolio.add(1000, 0.02 + (i % 60) * 0.001, settlement.plusMonths(12 + i % 348).plusDays(i % 28),
+                    frequencies[i % frequencies.length], settlement, 900 + i % 200, true);
+        }
+        portfolio.calculate();
+
+        KeyRateEngine engine = new KeyRateEngine();
+        long start = System.nanoTime();
+        KeyRateResult result = engine.calculate(portfolio);
+        long elapsed = System.nanoTime() - start;
+
+        System.out.println("Key rates for " + result.bondCount() + " bonds in " + elapsed / 1_000_000 + " ms");
+        double sum = 0.0;
+        for (Tenor tenor : Tenor.values()) {
+            double duration = result.getKeyRateDuration(1, tenor);
+            sum += duration;
+            System.out.printf("  %-9s %8.4f%n", tenor.getLabel(), duration);
+        }
+        System.out.printf("Bond 1: key rates sum to %.4f, effective duration %.4f, modified %.4f, effective convexity %.4f, convexity %.4f%n",
+                sum, result.getEffectiveDuration(1), portfolio.getModifiedDuration(1), result.getEffectiveConvexity(1), portfolio.getConvexity(1));
+    }
+}
@@ -0,0 +1,74 @@
+package yieldanalysis;
+
+// Key-rate durations at the DGS tenors and effective duration and convexity for a set of
+// bonds. Key-rate durations are held in one flat array, bond-major: the entry for (bond,
+// tenor) is at bond * Tenor.count() + tenor.ordinal(). Bonds without a yield have NaN entries.
+public class KeyRateResult {
+
+    private final int bondCount;
+    private final double[] dirtyPrice;
+    private final double[] keyRateDurations;
+    private final double[] effectiveDuration;
+    private final double[] effectiveConvexity;
+
+    KeyRateResult(int bondCount) {
+        this.bondCount = bondCount;
+        this.dirtyPrice = new double[bondCount];
+        this.keyRateDurations = new double[bondCount * Tenor.count()];
+        this.effectiveDuration = new double[bondCount];
+        this.effectiveConvexity = new double[bondCount];
+    }
+
+    void set(int bond, double dirtyPrice, double[] keyRates, double effectiveDuration, double effectiveConvexity) {
+        this.dirtyPrice[bond] = dirtyPrice;
+        System.arraycopy(keyRates, 0, keyRateDurations, bond * Tenor.count(), Tenor.count());
+        this.effectiveDuration[bond] = effectiveDuration;
+        this.effectiveConvexity[bond] = effectiveConvexity;
+    }
+
+    public int bondCount() {
+        return bondCount;
+    }
+
+    public double getDirtyPrice(int bond) {
+        return dirtyPrice[checkBond(bond)];
+    }
+
+    public double getKeyRateDuration(int bond, Tenor tenor) {
+        return keyRateDurations[checkBond(bond) * Tenor.count() + tenor.ordinal()];
+    }
+
+    public double getEffectiveDuration(int bond) {
+        return effectiveDuration[checkBond(bond)];
+    }
+
+    public double getEffectiveConvexity(int bond) {
+        return effectiveConvexity[checkBond(bond)];
+    }
+
+    // Price-weighted key-rate duration of all the bonds together (one of each), skipping bonds without a yield
+    public double getTotalKeyRateDuration(Tenor tenor) {
+        double weighted = 0.0;
+        double total = 0.0;
+        for (int bond = 0; bond < bondCount; bond++) {
+            double duration = keyRateDurations[bond * Tenor.count() + tenor.ordinal()];
+            if (!Double.isNaN(duration)) {
+                weighted += dirtyPrice[bond] * duration;
+                total += dirtyPrice[bond];
+            }
+        }
+        return total == 0.0 ? Double.NaN : weighted / total;
+    }
+
+    // The array is shared, not copied; callers must not modify it
+    public double[] getKeyRateDurationMatrix() {
+        return keyRateDurations;
+    }
+
+    private int checkBond(int bond) {
+        if (bond < 0 || bond >= bondCount) {
+            throw new IndexOutOfBoundsException("Bond " + bond + " is outside the " + bondCount + " results.");
+        }
+        return bond;
+    }
+}
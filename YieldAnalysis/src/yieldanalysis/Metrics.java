@@ -0,0 +1,131 @@
+package yieldanalysis;
+
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+// Process-wide counters, latency distributions and gauges for the hot paths: the yield solver,
+// FRED requests and the treasury lookback, the caches, the pricing service and batch runs.
+// PricingService serves them at GET /metrics; Flight Recorder events for the same places are
+// in MetricsEvents.
+//
+// Everything is on unless the JVM runs with -Dmetrics.enabled=false. The flag is a static
+// final, so when it is off the JIT drops the recording calls altogether. Call sites keep
+// their Counter or Distribution in a static field rather than looking it up by name each time.
+public final class Metrics {
+
+    public static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty("metrics.enabled"));
+
+    private static final Map<String, Counter> counters = new ConcurrentSkipListMap<>();
+    private static final Map<String, Distribution> distributions = new ConcurrentSkipListMap<>();
+    private static final Map<String, DoubleSupplier> gauges = new ConcurrentSkipListMap<>();
+
+    private Metrics() {
+    }
+
+    public static final class Counter {
+
+        private final LongAdder count = new LongAdder();
+
+        public void increment() {
+            if (ENABLED) {
+                count.increment();
+            }
+        }
+
+        public void add(long amount) {
+            if (ENABLED) {
+                count.add(amount);
+            }
+        }
+
+        public long get() {
+            return count.sum();
+        }
+    }
+
+    // Nanosecond timings (or any other non-negative amounts)
+    public static final class Distribution {
+
+        private final LatencyHistogram histogram = new LatencyHistogram();
+
+        public void record(long value) {
+            if (ENABLED) {
+                histogram.record(value);
+            }
+        }
+
+        // start is from Metrics.startTime()
+        public void recordSince(long start) {
+            if (ENABLED) {
+                histogram.record(System.nanoTime() - start);
+            }
+        }
+
+        public LatencyHistogram getHistogram() {
+            return histogram;
+        }
+    }
+
+    // The same name always gives the same counter
+    public static Counter counter(String name) {
+        return counters.computeIfAbsent(name, key -> new Counter());
+    }
+
+    public static Distribution distribution(String name) {
+        return distributions.computeIfAbsent(name, key -> new Distribution());
+    }
+
+    // Read when the metrics are reported; a later gauge with the same name replaces the earlier one
+    public static void gauge(String name, DoubleSupplier value) {
+        gauges.put(name, value);
+    }
+
+    // System.nanoTime(), or 0 without the call when metrics are off
+    public static long startTime() {
+        return ENABLED ? System.nanoTime() : 0L;
+    }
+
+    public static void report(PrintStream out) {
+        for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+            out.printf("%-36s %d%n", entry.getKey(), entry.getValue().get());
+        }
+        for (Map.Entry<String, DoubleSupplier> entry : gauges.entrySet()) {
+            out.printf("%-36s %.4f%n", entry.getKey(), entry.getValue().getAsDouble());
+        }
+        for (Map.Entry<String, Distribution> entry : distributions.entrySet()) {
+            out.printf("%-36s %s%n", entry.getKey(), entry.getValue().getHistogram().summary(1_000, "us"));
+        }
+    }
+
+    // {"counters": {...}, "gauges": {...}, "distributions": {name: {count, mean, p50, p90, p99, p999, max}}},
+    // times in nanoseconds
+    public static String toJson() {
+        StringBuilder out = new StringBuilder(4096);
+        out.append("{\"enabled\":").append(ENABLED).append(",\"counters\":{");
+        for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+            Json.field(out, entry.getKey(), entry.getValue().get());
+        }
+        out.append("},\"gauges\":{");
+        for (Map.Entry<String, DoubleSupplier> entry : gauges.entrySet()) {
+            Json.field(out, entry.getKey(), entry.getValue().getAsDouble());
+        }
+        out.append("},\"distributions\":{");
+        for (Map.Entry<String, Distribution> entry : distributions.entrySet()) {
+            LatencyHistogram histogram = entry.getValue().getHistogram();
+            Json.name(out, entry.getKey());
+            out.append('{');
+            Json.field(out, "count", histogram.getCount());
+            Json.field(out, "mean", histogram.getMean());
+            Json.field(out, "p50", histogram.getValueAtPercentile(50));
+            Json.field(out, "p90", histogram.getValueAtPercentile(90));
+            Json.field(out, "p99", histogram.getValueAtPercentile(99));
+            Json.field(out, "p999", histogram.getValueAtPercentile(99.9));
+            Json.field(out, "max", histogram.getMax());
+            out.append('}');
+        }
+        return out.append("}}").toString();
+    }
+}
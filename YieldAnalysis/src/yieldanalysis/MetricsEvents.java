@@ -0,0 +1,100 @@
+package yieldanalysis;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Flight Recorder events for the places Metrics counts, so a recording shows which FRED request,
+// solve, HTTP request or batch run was slow rather than only how many there were. They are
+// enabled by default in any recording (java -XX:StartFlightRecording ...) and cost next to
+// nothing when none is running, since the fields are only filled in when shouldCommit() says so.
+final class MetricsEvents {
+
+    private MetricsEvents() {
+    }
+
+    @Name("yieldanalysis.FredRequest")
+    @Label("FRED Request")
+    @Category({"Yield Analysis", "Network"})
+    @StackTrace(false)
+    static final class FredRequest extends Event {
+        @Label("Series")
+        String seriesId;
+        @Label("Observation Start")
+        String start;
+        @Label("Observation End")
+        String end;
+        @Label("Succeeded")
+        boolean succeeded;
+    }
+
+    @Name("yieldanalysis.YieldSolveFailure")
+    @Label("Yield Solve Failure")
+    @Description("A yield solve that did not converge or had nothing to solve for")
+    @Category({"Yield Analysis", "Solver"})
+    static final class YieldSolveFailure extends Event {
+        @Label("Face Value")
+        double faceValue;
+        @Label("Coupon Rate")
+        double couponRate;
+        @Label("Coupon Frequency")
+        int couponFrequency;
+        @Label("Coupons Remaining")
+        int periods;
+        @Label("Dirty Price")
+        double price;
+        @Label("Guess")
+        double guess;
+        @Label("Iterations")
+        int iterations;
+    }
+
+    @Name("yieldanalysis.PricingRequest")
+    @Label("Pricing Request")
+    @Category({"Yield Analysis", "Pricing Service"})
+    @StackTrace(false)
+    static final class PricingRequest extends Event {
+        @Label("Path")
+        String path;
+        @Label("Status")
+        int status;
+    }
+
+    @Name("yieldanalysis.TreasuryDataFailure")
+    @Label("Treasury Data Failure")
+    @Description("A FRED fetch or a treasury data file read or write that failed and was worked around")
+    @Category({"Yield Analysis", "Treasury Data"})
+    static final class TreasuryDataFailure extends Event {
+        @Label("Operation")
+        String operation;
+        @Label("Subject")
+        String subject;
+        @Label("Error")
+        String error;
+    }
+
+    // The failures are counted where they happen; this only leaves the detail in a recording
+    static void treasuryDataFailure(String operation, String subject, Exception e) {
+        TreasuryDataFailure event = new TreasuryDataFailure();
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.subject = subject;
+            event.error = e.toString();
+            event.commit();
+        }
+    }
+
+    @Name("yieldanalysis.BatchRun")
+    @Label("Batch Run")
+    @Category({"Yield Analysis", "Batch"})
+    @StackTrace(false)
+    static final class BatchRun extends Event {
+        @Label("Input")
+        String input;
+        @Label("Rows")
+        long rows;
+    }
+}
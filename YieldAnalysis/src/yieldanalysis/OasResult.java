@@ -0,0 +1,72 @@
+package yieldanalysis;
+
+// Option-adjusted analytics for a set of callable or putable bonds, one entry per bond in
+// flat arrays. Bonds without a curve or an OAS that reprices them have NaN entries.
+public class OasResult {
+
+    private final int bondCount;
+    private final double[] dirtyPrice;
+    private final double[] oas;
+    private final double[] optionValue;
+    private final double[] effectiveDuration;
+    private final double[] effectiveConvexity;
+    private final int[] iterations;
+
+    OasResult(int bondCount) {
+        this.bondCount = bondCount;
+        this.dirtyPrice = new double[bondCount];
+        this.oas = new double[bondCount];
+        this.optionValue = new double[bondCount];
+        this.effectiveDuration = new double[bondCount];
+        this.effectiveConvexity = new double[bondCount];
+        this.iterations = new int[bondCount];
+    }
+
+    void set(int bond, double dirtyPrice, double oas, double optionValue, double effectiveDuration, double effectiveConvexity, int iterations) {
+        this.dirtyPrice[bond] = dirtyPrice;
+        this.oas[bond] = oas;
+        this.optionValue[bond] = optionValue;
+        this.effectiveDuration[bond] = effectiveDuration;
+        this.effectiveConvexity[bond] = effectiveConvexity;
+        this.iterations[bond] = iterations;
+    }
+
+    public int bondCount() {
+        return bondCount;
+    }
+
+    public double getDirtyPrice(int bond) {
+        return dirtyPrice[checkBond(bond)];
+    }
+
+    // Spread over the lattice's short rates, as a decimal
+    public double getOptionAdjustedSpread(int bond) {
+        return oas[checkBond(bond)];
+    }
+
+    // Value of the same bond without the option, less its value with it, at the OAS: positive
+    // for a call (the holder is short the option), negative for a put
+    public double getOptionValue(int bond) {
+        return optionValue[checkBond(bond)];
+    }
+
+    public double getEffectiveDuration(int bond) {
+        return effectiveDuration[checkBond(bond)];
+    }
+
+    public double getEffectiveConvexity(int bond) {
+        return effectiveConvexity[checkBond(bond)];
+    }
+
+    // Lattice valuations the OAS search took
+    public int getIterations(int bond) {
+        return iterations[checkBond(bond)];
+    }
+
+    private int checkBond(int bond) {
+        if (bond < 0 || bond >= bondCount) {
+            throw new IndexOutOfBoundsException("Bond " + bond + " is outside the " + bondCount + " results.");
+        }
+        return bond;
+    }
+}
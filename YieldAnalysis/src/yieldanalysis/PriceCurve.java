@@ -0,0 +1,49 @@
+package yieldanalysis;
+
+// Exact prices and the duration and duration+convexity approximations of one bond over a
+// grid of yields, as parallel primitive arrays indexed by grid point.
+public class PriceCurve {
+
+    private final double[] yields;
+    private final double[] exactPrices;
+    private final double[] durationPrices;
+    private final double[] convexityPrices;
+
+    PriceCurve(double[] yields, double[] exactPrices, double[] durationPrices, double[] convexityPrices) {
+        this.yields = yields;
+        this.exactPrices = exactPrices;
+        this.durationPrices = durationPrices;
+        this.convexityPrices = convexityPrices;
+    }
+
+    public int size() {
+        return yields.length;
+    }
+
+    // The arrays are shared, not copied; callers must not modify them
+
+    public double[] getYields() {
+        return yields;
+    }
+
+    public double[] getExactPrices() {
+        return exactPrices;
+    }
+
+    public double[] getDurationPrices() {
+        return durationPrices;
+    }
+
+    public double[] getConvexityPrices() {
+        return convexityPrices;
+    }
+
+    // Approximation minus exact price at grid point i
+    public double getDurationError(int i) {
+        return durationPrices[i] - exactPrices[i];
+    }
+
+    public double getConvexityError(int i) {
+        return convexityPrices[i] - exactPrices[i];
+    }
+}
@@ -0,0 +1,88 @@
+package yieldanalysis;
+
+import org.jfree.data.DomainOrder;
+import org.jfree.data.xy.AbstractXYDataset;
+
+// JFreeChart view straight onto a PriceCurve's primitive arrays. Showing a new curve swaps
+// one reference and fires a single change event, instead of clearing and refilling XYSeries
+// (one XYDataItem and one event per point). Yields are shown in percent.
+class PriceCurveDataset extends AbstractXYDataset {
+
+    enum Kind {
+        PRICES("Duration Line", "Convexity Line", "Exact Price"),
+        ERRORS("Duration Error", "Convexity Error");
+
+        private final String[] seriesKeys;
+
+        Kind(String... seriesKeys) {
+            this.seriesKeys = seriesKeys;
+        }
+    }
+
+    private final Kind kind;
+    private PriceCurve curve;
+
+    PriceCurveDataset(Kind kind) {
+        this.kind = kind;
+    }
+
+    PriceCurve getCurve() {
+        return curve;
+    }
+
+    // Null shows nothing
+    void setCurve(PriceCurve curve) {
+        this.curve = curve;
+        fireDatasetChanged();
+    }
+
+    @Override
+    public int getSeriesCount() {
+        return kind.seriesKeys.length;
+    }
+
+    @Override
+    public Comparable<?> getSeriesKey(int series) {
+        return kind.seriesKeys[series];
+    }
+
+    @Override
+    public DomainOrder getDomainOrder() {
+        return DomainOrder.ASCENDING;
+    }
+
+    @Override
+    public int getItemCount(int series) {
+        return curve == null ? 0 : curve.size();
+    }
+
+    @Override
+    public double getXValue(int series, int item) {
+        return curve.getYields()[item] * 100;
+    }
+
+    @Override
+    public double getYValue(int series, int item) {
+        if (kind == Kind.ERRORS) {
+            return series == 0 ? curve.getDurationError(item) : curve.getConvexityError(item);
+        }
+        switch (series) {
+            case 0:
+                return curve.getDurationPrices()[item];
+            case 1:
+                return curve.getConvexityPrices()[item];
+            default:
+                return curve.getExactPrices()[item];
+        }
+    }
+
+    @Override
+    public Number getX(int series, int item) {
+        return getXValue(series, item);
+    }
+
+    @Override
+    public Number getY(int series, int item) {
+        return getYValue(series, item);
+    }
+}
@@ -0,0 +1,66 @@
+package yieldanalysis;
+
+// Reprices a bond exactly at every point of a yield grid. Every point is the closed-form
+// annuity price, worked out a vector of grid points at a time by BatchPricingKernel.
+public class PriceCurveEngine {
+
+    public static final int DEFAULT_POINTS = 1001;
+
+    private PriceCurveEngine() {
+    }
+
+    // Evenly spaced yields around the bond's yield: +/-50% of it, but at least +/-100bp, so a
+    // zero (or tiny) yield still gets a usable range; the periodic rate always stays above -100%
+    public static double[] grid(double yieldToMaturity, int couponFrequency, int points) {
+        if (points < 2) {
+            throw new IllegalArgumentException("A yield grid needs at least two points.");
+        }
+        double halfWidth = Math.max(Math.abs(yieldToMaturity) * 0.5, 0.01);
+        double from = Math.max(yieldToMaturity - halfWidth, -0.99 * couponFrequency);
+        double to = yieldToMaturity + halfWidth;
+        double[] yields = new double[points];
+        double step = (to - from) / (points - 1);
+        for (int i = 0; i < points; i++) {
+            yields[i] = from + i * step;
+        }
+        return yields;
+    }
+
+    public static PriceCurve reprice(Bond bond) {
+        return reprice(bond, grid(bond.getYieldToMaturity(), bond.getCouponFrequency(), DEFAULT_POINTS));
+    }
+
+    public static PriceCurve reprice(Bond bond, double[] yields) {
+        CashFlowSchedule schedule = bond.getCashFlowSchedule();
+        return reprice(bond.getFaceValue(), bond.getCouponRate(), bond.getCouponFrequency(), schedule.size(),
+                schedule.getFirstPeriod(), schedule.getAccruedInterest(), bond.getYieldToMaturity(), bond.getPrice(),
+                bond.getModifiedDuration(), bond.getConvexity(), yields);
+    }
+
+    public static PriceCurve reprice(double faceValue, double couponRate, int couponFrequency, int n,
+            double yieldToMaturity, double price, double modifiedDuration, double convexity, double[] yields) {
+        return reprice(faceValue, couponRate, couponFrequency, n, 1.0, 0.0, yieldToMaturity, price, modifiedDuration, convexity, yields);
+    }
+
+    // Clean prices for a settlement between coupon dates: the first flow is firstPeriod periods
+    // away and accruedInterest is taken off every price. Duration and convexity describe the
+    // dirty price, so the approximations are built on it too.
+    public static PriceCurve reprice(double faceValue, double couponRate, int couponFrequency, int n, double firstPeriod,
+            double accruedInterest, double yieldToMaturity, double price, double modifiedDuration, double convexity, double[] yields) {
+        int points = yields.length;
+        double[] exact = new double[points];
+        BatchPricingKernel.getDefault().priceYields(faceValue, couponRate, couponFrequency, n, firstPeriod, yields, exact, null, points);
+
+        // Same approximations the chart has always drawn, now over the same grid
+        double dirtyPrice = price + accruedInterest;
+        double[] durationPrices = new double[points];
+        double[] convexityPrices = new double[points];
+        for (int j = 0; j < points; j++) {
+            exact[j] -= accruedInterest;
+            double change = yields[j] - yieldToMaturity;
+            durationPrices[j] = price - modifiedDuration * change * dirtyPrice;
+            convexityPrices[j] = durationPrices[j] + 0.5 * convexity * change * change * dirtyPrice;
+        }
+        return new PriceCurve(yields, exact, durationPrices, convexityPrices);
+    }
+}
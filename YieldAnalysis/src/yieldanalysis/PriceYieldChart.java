@@ -0,0 +1,24 @@
+package yieldanalysis;
+
+import javax.swing.JFrame;
+import java.time.LocalDate;
+
+// Stand-alone window around PriceYieldChartPanel
+public class PriceYieldChart extends JFrame {
+
+	public PriceYieldChart(String title, Bond bond) {
+    	super(title);
+        setContentPane(new PriceYieldChartPanel(PriceCurveEngine.reprice(bond)));
+    }
+
+    public static void main(String[] args) {
+        
+    	Bond bondUpdated = new Bond(1000, 0.08, LocalDate.of(2026, 01, 01), 2, LocalDate.of(2020, 1, 1), 911.37, true);
+    	PriceYieldChart example = new PriceYieldChart("Line Chart Example", bondUpdated);
+        example.setSize(800, 400);
+        example.setLocationRelativeTo(null);
+        example.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        example.setVisible(true);
+        
+    }
+}
\ No newline at end of file
@@ -0,0 +1,98 @@
+package yieldanalysis;
+
+import org.jfree.chart.ChartFactory;
+import org.jfree.chart.ChartPanel;
+import org.jfree.chart.JFreeChart;
+import org.jfree.chart.axis.NumberAxis;
+import org.jfree.chart.labels.StandardXYToolTipGenerator;
+import org.jfree.chart.plot.PlotOrientation;
+import org.jfree.chart.plot.XYPlot;
+import org.jfree.chart.renderer.xy.XYLineAndShapeRenderer;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.text.DecimalFormat;
+
+// Long-lived price-yield chart. The chart, renderers and datasets are created once; each
+// calculation only hands over a new PriceCurve, with chart notifications suspended so the
+// swap costs one redraw.
+public class PriceYieldChartPanel extends ChartPanel {
+
+    private final PriceCurveDataset priceDataset = new PriceCurveDataset(PriceCurveDataset.Kind.PRICES);
+    private final PriceCurveDataset errorDataset = new PriceCurveDataset(PriceCurveDataset.Kind.ERRORS);
+
+    public PriceYieldChartPanel() {
+        super(null);
+
+        JFreeChart chart = ChartFactory.createXYLineChart(
+                "Price-Yield Relationship",
+                "Yield-to-Maturity (%)",
+                "Price",
+                priceDataset,
+                PlotOrientation.VERTICAL,
+                true, true, false);
+
+        XYLineAndShapeRenderer renderer = new XYLineAndShapeRenderer();
+        Color[] colors = {Color.GREEN, Color.RED, Color.WHITE};
+        for (int i = 0; i < colors.length; i++) {
+            renderer.setSeriesShapesVisible(i, false);
+            renderer.setSeriesStroke(i, new BasicStroke(2.0f));
+            renderer.setSeriesPaint(i, colors[i]);
+            renderer.setSeriesToolTipGenerator(i, new StandardXYToolTipGenerator(
+                    "{0}: ({1}, {2})", new DecimalFormat("0.00"), new DecimalFormat("0.00")
+                ));
+        }
+
+        XYPlot plot = chart.getXYPlot();
+        plot.setRenderer(renderer);
+        
+        NumberAxis yAxis = (NumberAxis) plot.getRangeAxis();
+        yAxis.setAutoRangeIncludesZero(false);
+
+        // The approximation errors are a few cents against a price in the hundreds,
+        // so they get their own axis on the right
+        NumberAxis errorAxis = new NumberAxis("Approximation Error");
+        errorAxis.setAutoRangeIncludesZero(true);
+        plot.setRangeAxis(1, errorAxis);
+        plot.setDataset(1, errorDataset);
+        plot.mapDatasetToRangeAxis(1, 1);
+
+        XYLineAndShapeRenderer errorRenderer = new XYLineAndShapeRenderer();
+        float[] dash = {6.0f, 4.0f};
+        Color[] errorColors = {Color.CYAN, Color.ORANGE};
+        for (int i = 0; i < errorColors.length; i++) {
+            errorRenderer.setSeriesShapesVisible(i, false);
+            errorRenderer.setSeriesStroke(i, new BasicStroke(1.5f, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER, 10.0f, dash, 0.0f));
+            errorRenderer.setSeriesPaint(i, errorColors[i]);
+            errorRenderer.setSeriesToolTipGenerator(i, new StandardXYToolTipGenerator(
+                    "{0}: ({1}, {2})", new DecimalFormat("0.00"), new DecimalFormat("0.0000")
+                ));
+        }
+        plot.setRenderer(1, errorRenderer);
+
+        plot.setBackgroundPaint(Color.BLACK);
+        setChart(chart);
+    }
+
+    public PriceYieldChartPanel(PriceCurve curve) {
+        this();
+        setPriceCurve(curve);
+    }
+
+    public PriceCurve getPriceCurve() {
+        return priceDataset.getCurve();
+    }
+
+    // Shows a new curve (null clears the chart). Call on the event thread.
+    public void setPriceCurve(PriceCurve curve) {
+        JFreeChart chart = getChart();
+        chart.setNotify(false);
+        try {
+            priceDataset.setCurve(curve);
+            errorDataset.setCurve(curve);
+        } finally {
+            // Fires the one change event that redraws the chart
+            chart.setNotify(true);
+        }
+    }
+}
@@ -0,0 +1,377 @@
+package yieldanalysis;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+
+// The Bond analytics over HTTP/JSON, for systems that can't use the viewer.
+//
+//   POST /price          {faceValue, couponRate, maturityDate, couponFrequency, settlementDate, yieldToMaturity}
+//                        -> {price, accruedInterest}
+//   POST /yield          {..., price} -> {yieldToMaturity, iterations, converged}
+//   POST /risk           {..., price or yieldToMaturity} -> price, accrued interest, yield, durations, convexity,
+//                        tenor, treasuryYield and spread
+//   POST /price/batch, /yield/batch, /risk/batch take a JSON array of the same objects and
+//   answer with an array in the same order; an element that fails gets {"error": ...}.
+//   GET  /metrics        -> Metrics.toJson(), including each endpoint's latency and errors
+//
+// Rates are decimals, dates yyyy-MM-dd and prices clean (ACT/ACT accrual), as in Bond. Every request shares the process-wide
+// treasury data and the analytics cache, so repeated risk requests for the same terms are free.
+// Requests run on virtual threads where the JVM has them (JDK 21+), and on a fixed pool of
+// platform threads otherwise. The items of a large batch are priced in parallel on the common
+// fork-join pool; the treasury curves they settle on are looked up on the request thread
+// first, so no pool worker ever waits on FRED.
+public class PricingService {
+
+    static final int DEFAULT_PORT = 8080;
+
+    private static final int BACKLOG = 1024;
+
+    // Batch items per fork-join leaf
+    private static final int BATCH_SIZE = 16;
+
+    // Largest request body read, in bytes; anything longer is refused with 413
+    static final int MAX_BODY_BYTES = 8 * 1024 * 1024;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final BondAnalyticsCache analyticsCache;
+
+    // Writes the result fields for one request object into out, which already holds the opening '{'.
+    // curves gives the treasury curve of a settlement date, or null if there is none.
+    private interface Operation {
+        void apply(Map<String, Object> request, Function<LocalDate, YieldCurve> curves, StringBuilder out);
+    }
+
+    public PricingService(InetSocketAddress address, BondAnalyticsCache analyticsCache) throws IOException {
+        this.analyticsCache = analyticsCache;
+        this.executor = requestExecutor();
+        this.server = HttpServer.create(address, BACKLOG);
+        server.setExecutor(executor);
+        register("/price", PricingService::price, false);
+        register("/yield", PricingService::yield, false);
+        register("/risk", this::risk, true);
+        server.createContext("/metrics", PricingService::metrics);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    // Waits up to delaySeconds for requests in progress, then stops
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor() only exists from JDK 21, and the build targets 17
+    static ExecutorService requestExecutor() {
+        try {
+            Method virtualThreads = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) virtualThreads.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            int threads = Integer.getInteger("pricing.threads", Runtime.getRuntime().availableProcessors() * 4);
+            return Executors.newFixedThreadPool(threads, runnable -> {
+                Thread thread = new Thread(runnable, "pricing-request");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    // The JDK server writes the headers and the body of a response separately; with Nagle's
+    // algorithm on, each keep-alive response then waits for the client's delayed ACK. The server
+    // reads the property once, when the first one is created, so this is for launchers to call
+    // before that; it is the same as running with -Dsun.net.httpserver.nodelay=true.
+    static void useNoDelay() {
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    // usesCurves says whether the operation needs treasury curves, which a batch then resolves up front
+    private void register(String path, Operation operation, boolean usesCurves) {
+        server.createContext(path, measured(path, exchange -> handle(exchange, path, operation, usesCurves, false)));
+        server.createContext(path + "/batch", measured(path + "/batch",
+                exchange -> handle(exchange, path + "/batch", operation, usesCurves, true)));
+    }
+
+    // Times every request to the endpoint and counts the ones that fail
+    private static HttpHandler measured(String path, HttpHandler handler) {
+        String name = "http" + path.replace('/', '.');
+        Metrics.Distribution latency = Metrics.distribution(name + ".latency");
+        Metrics.Counter errors = Metrics.counter(name + ".errors");
+        return exchange -> {
+            MetricsEvents.PricingRequest event = new MetricsEvents.PricingRequest();
+            event.begin();
+            long start = Metrics.startTime();
+            try {
+                handler.handle(exchange);
+            } finally {
+                latency.recordSince(start);
+                int status = exchange.getResponseCode();
+                if (status >= 400 || status < 0) {
+                    errors.increment();
+                }
+                event.end();
+                if (event.shouldCommit()) {
+                    event.path = exchange.getRequestURI().getPath();
+                    event.status = status;
+                    event.commit();
+                }
+            }
+        };
+    }
+
+    private static void metrics(HttpExchange exchange) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals("GET")) {
+                exchange.getResponseHeaders().set("Allow", "GET");
+                respond(exchange, 405, error("Use GET."));
+                return;
+            }
+            respond(exchange, 200, Metrics.toJson());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handle(HttpExchange exchange, String path, Operation operation, boolean usesCurves, boolean batch) throws IOException {
+        try {
+            if (!exchange.getRequestURI().getPath().equals(path)) {
+                respond(exchange, 404, error("No such endpoint."));
+                return;
+            }
+            if (!exchange.getRequestMethod().equals("POST")) {
+                exchange.getResponseHeaders().set("Allow", "POST");
+                respond(exchange, 405, error("Use POST."));
+                return;
+            }
+
+            byte[] body = exchange.getRequestBody().readNBytes(MAX_BODY_BYTES + 1);
+            if (body.length > MAX_BODY_BYTES) {
+                respond(exchange, 413, error("The request body is larger than " + MAX_BODY_BYTES + " bytes."));
+                return;
+            }
+            Object request;
+            try {
+                request = Json.parse(new String(body, StandardCharsets.UTF_8));
+            } catch (IllegalArgumentException e) {
+                respond(exchange, 400, error(e.getMessage()));
+                return;
+            }
+
+            if (!batch) {
+                StringBuilder out = new StringBuilder(256);
+                boolean ok = apply(operation, request, analyticsCache.getMarketData()::getCurve, out);
+                respond(exchange, ok ? 200 : 400, out.toString());
+                return;
+            }
+            if (!(request instanceof List)) {
+                respond(exchange, 400, error("A batch request must be a JSON array."));
+                return;
+            }
+            List<?> items = (List<?>) request;
+            Function<LocalDate, YieldCurve> curves = usesCurves ? curves(items) : date -> null;
+            respond(exchange, 200, batch(operation, items, curves));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // The curves of every settlement date in the batch, looked up on this (the request's) thread.
+    // Items whose date can't be read are left out; they fail on their own when applied.
+    private Function<LocalDate, YieldCurve> curves(List<?> items) {
+        Map<LocalDate, YieldCurve> curves = new HashMap<>();
+        for (Object item : items) {
+            if (item instanceof Map && ((Map<?, ?>) item).get("settlementDate") instanceof String) {
+                try {
+                    LocalDate date = LocalDate.parse((String) ((Map<?, ?>) item).get("settlementDate"));
+                    if (!curves.containsKey(date)) {
+                        curves.put(date, analyticsCache.getMarketData().getCurve(date));
+                    }
+                } catch (DateTimeException e) {
+                    // Reported against the item itself
+                }
+            }
+        }
+        return curves::get;
+    }
+
+    // Small batches are answered on the request's own thread; larger ones are split over the
+    // common fork-join pool, each leaf writing its items into its own buffer
+    private static String batch(Operation operation, List<?> items, Function<LocalDate, YieldCurve> curves) {
+        if (items.size() <= BATCH_SIZE) {
+            StringBuilder out = new StringBuilder(items.size() * 256 + 2);
+            out.append('[');
+            for (int i = 0; i < items.size(); i++) {
+                if (i > 0) {
+                    out.append(',');
+                }
+                apply(operation, items.get(i), curves, out);
+            }
+            return out.append(']').toString();
+        }
+        String[] results = new String[items.size()];
+        ForkJoinPool.commonPool().invoke(new BatchTask(operation, items, curves, results, 0, items.size()));
+        return "[" + String.join(",", results) + "]";
+    }
+
+    // Appends the result object, or an error object if the request can't be served
+    private static boolean apply(Operation operation, Object request, Function<LocalDate, YieldCurve> curves, StringBuilder out) {
+        int start = out.length();
+        try {
+            if (!(request instanceof Map)) {
+                throw new IllegalArgumentException("Expected a JSON object.");
+            }
+            @SuppressWarnings("unchecked")
+            Map<String, Object> fields = (Map<String, Object>) request;
+            out.append('{');
+            operation.apply(fields, curves, out);
+            out.append('}');
+            return true;
+        } catch (IllegalArgumentException | DateTimeException e) {
+            out.setLength(start);
+            out.append(error(e.getMessage()));
+            return false;
+        }
+    }
+
+    private static void price(Map<String, Object> request, Function<LocalDate, YieldCurve> curves, StringBuilder out) {
+        BondTerms terms = terms(request, false);
+        CashFlowSchedule schedule = schedule(terms);
+        Json.field(out, "price", schedule.cleanPrice(terms.getValue()));
+        Json.field(out, "accruedInterest", schedule.getAccruedInterest());
+    }
+
+    private static void yield(Map<String, Object> request, Function<LocalDate, YieldCurve> curves, StringBuilder out) {
+        BondTerms terms = terms(request, true);
+        CashFlowSchedule schedule = schedule(terms);
+        SolverResult result = new SolverResult();
+        Bond.getYieldSolver().solve(schedule, terms.getValue() + schedule.getAccruedInterest(), YieldSolver.NO_GUESS, result);
+        Json.field(out, "yieldToMaturity", result.getYield());
+        out.append(",\"iterations\":").append(result.getIterations());
+        out.append(",\"converged\":").append(result.isConverged());
+    }
+
+    private void risk(Map<String, Object> request, Function<LocalDate, YieldCurve> curves, StringBuilder out) {
+        BondAnalytics analytics = analyticsCache.get(terms(request, request.containsKey("price")), curves);
+        Json.field(out, "price", analytics.getPrice());
+        Json.field(out, "accruedInterest", analytics.getAccruedInterest());
+        Json.field(out, "yieldToMaturity", analytics.getYieldToMaturity());
+        Json.field(out, "macaulayDuration", analytics.getMacaulayDuration());
+        Json.field(out, "modifiedDuration", analytics.getModifiedDuration());
+        Json.field(out, "convexity", analytics.getConvexity());
+        Json.field(out, "tenor", analytics.getTenor());
+        Json.field(out, "treasuryYield", analytics.getTreasuryYield());
+        Json.field(out, "spread", analytics.getSpread());
+    }
+
+    private static BondTerms terms(Map<String, Object> request, boolean isPrice) {
+        double frequency = number(request, "couponFrequency");
+        if (frequency != Math.rint(frequency)) {
+            throw new IllegalArgumentException("Coupon Frequency must be 1, 2, 4 or 12.");
+        }
+        return new BondTerms(number(request, "faceValue"), number(request, "couponRate"), date(request, "maturityDate"),
+                (int) frequency, date(request, "settlementDate"),
+                number(request, isPrice ? "price" : "yieldToMaturity"), isPrice);
+    }
+
+    private static CashFlowSchedule schedule(BondTerms terms) {
+        return new CashFlowSchedule(terms.getFaceValue(), terms.getCouponRate(), terms.getMaturityDate(), terms.getCouponFrequency(),
+                terms.getSettlementDate(), terms.getDayCount());
+    }
+
+    private static double number(Map<String, Object> request, String name) {
+        Object value = request.get(name);
+        if (!(value instanceof Double)) {
+            throw new IllegalArgumentException(name + " must be a number.");
+        }
+        return (Double) value;
+    }
+
+    private static LocalDate date(Map<String, Object> request, String name) {
+        Object value = request.get(name);
+        if (!(value instanceof String)) {
+            throw new IllegalArgumentException(name + " must be a yyyy-MM-dd date.");
+        }
+        return LocalDate.parse((String) value);
+    }
+
+    private static String error(String message) {
+        StringBuilder out = new StringBuilder("{");
+        Json.field(out, "error", message);
+        return out.append('}').toString();
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    // java yieldanalysis.PricingService [port]
+    public static void main(String[] args) throws IOException {
+        useNoDelay();
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : Integer.getInteger("pricing.port", DEFAULT_PORT);
+        PricingService service = new PricingService(new InetSocketAddress(port), BondAnalyticsCache.getDefault());
+        service.start();
+        System.out.println("Pricing service listening on port " + service.getPort());
+    }
+
+    private static class BatchTask extends RecursiveAction {
+        private final Operation operation;
+        private final List<?> items;
+        private final Function<LocalDate, YieldCurve> curves;
+        private final String[] results;
+        private final int from;
+        private final int to;
+
+        BatchTask(Operation operation, List<?> items, Function<LocalDate, YieldCurve> curves, String[] results, int from, int to) {
+            this.operation = operation;
+            this.items = items;
+            this.curves = curves;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= BATCH_SIZE) {
+                StringBuilder out = new StringBuilder(256);
+                for (int i = from; i < to; i++) {
+                    out.setLength(0);
+                    apply(operation, items.get(i), curves, out);
+                    results[i] = out.toString();
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new BatchTask(operation, items, curves, results, from, mid), new BatchTask(operation, items, curves, results, mid, to));
+        }
+    }
+}
@@ -0,0 +1,418 @@
+package yieldanalysis;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+
+// Running portfolio risk totals by tenor bucket that follow price, yield and quantity changes
+// one position at a time, from any number of threads, without recalculating the book.
+//
+// A change reprices only the position that changed and adds the difference between its new
+// and old contributions to the totals. The totals are split into stripes, each one covering a
+// fixed share of the positions. A stripe's totals are an immutable array swapped in by
+// compare-and-set, so threads updating positions in different stripes never touch the same
+// memory, and none of them ever blocks. Each new stripe state also carries the position
+// change it accounts for. The position itself is only written after the swap, by whichever
+// thread gets there first: the next writer to the stripe finishes it before reading anything.
+// That way a position and its stripe's totals can never disagree, even when two threads change
+// the same position at once.
+//
+// snapshot() reads every stripe twice and retries until nothing has changed in between. All
+// the stripes then held those totals at the same moment, so a snapshot only ever contains
+// whole changes. Under a steady stream of updates the reads might never agree, so after a few
+// attempts the snapshot closes a gate that writers check before each compare-and-set. Updates
+// already past it can still land, at most one per thread, and then the reads settle; the
+// writers wait for the short time until the gate opens again.
+public class RiskAggregator {
+
+    // Measures per bucket, in the order they are stored
+    static final int MARKET_VALUE = 0;
+    static final int DV01 = 1;
+    static final int DURATION_EXPOSURE = 2;
+    static final int CONVEXITY_EXPOSURE = 3;
+    static final int MEASURES = 4;
+
+    private static final int BUCKETS = Tenor.count();
+
+    // Double collects a snapshot tries before it holds the writers off
+    private static final int SNAPSHOT_ATTEMPTS = 8;
+
+    private final Map<String, Integer> indexById = new HashMap<>();
+    private final AtomicReferenceArray<Position> positions;
+    private final AtomicReferenceArray<StripeState> stripes;
+    private final int stripeMask;
+    // Snapshots currently holding the writers off; updates wait while it is not zero
+    private final AtomicInteger gate = new AtomicInteger();
+    private final LongAdder updates = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder gatedSnapshots = new LongAdder();
+
+    // Terms, fixed at registration
+    private final String[] positionId;
+    private final double[] faceValue;
+    private final double[] couponRate;
+    private final int[] couponFrequency;
+    private final int[] periods;
+    private final double[] firstPeriod;
+    private final double[] accruedInterest;
+    private final int[] bucket;
+
+    private volatile int size;
+
+    public RiskAggregator(int maxPositions) {
+        this(maxPositions, 4 * Runtime.getRuntime().availableProcessors());
+    }
+
+    // The stripe count is rounded up to a power of two
+    public RiskAggregator(int maxPositions, int stripeCount) {
+        if (maxPositions <= 0 || stripeCount <= 0) {
+            throw new IllegalArgumentException("maxPositions and stripeCount must be positive.");
+        }
+        stripes = new AtomicReferenceArray<>(stripeCount == 1 ? 1 : Integer.highestOneBit(stripeCount - 1) << 1);
+        stripeMask = stripes.length() - 1;
+        for (int i = 0; i < stripes.length(); i++) {
+            stripes.set(i, new StripeState(new double[BUCKETS * MEASURES], -1, null, null));
+        }
+        positions = new AtomicReferenceArray<>(maxPositions);
+        positionId = new String[maxPositions];
+        faceValue = new double[maxPositions];
+        couponRate = new double[maxPositions];
+        couponFrequency = new int[maxPositions];
+        periods = new int[maxPositions];
+        firstPeriod = new double[maxPositions];
+        accruedInterest = new double[maxPositions];
+        bucket = new int[maxPositions];
+    }
+
+    // Adds a bond with no quantity and no price yet and returns its index for the updates
+    public synchronized int register(String id, double faceValue, double couponRate, LocalDate maturityDate, int couponFrequency, LocalDate settlementDate) {
+        if (indexById.containsKey(id)) {
+            throw new IllegalArgumentException("Position " + id + " is already registered.");
+        }
+        int position = size;
+        if (position == positionId.length) {
+            throw new IllegalArgumentException("No room for more than " + positionId.length + " positions.");
+        }
+        CashFlowSchedule schedule = new CashFlowSchedule(faceValue, couponRate, maturityDate, couponFrequency, settlementDate,
+                CashFlowSchedule.DayCount.ACT_ACT);
+        this.positionId[position] = id;
+        this.faceValue[position] = faceValue;
+        this.couponRate[position] = couponRate;
+        this.couponFrequency[position] = couponFrequency;
+        periods[position] = schedule.size();
+        firstPeriod[position] = schedule.getFirstPeriod();
+        accruedInterest[position] = schedule.getAccruedInterest();
+        bucket[position] = Tenor.fromLabel(Bond.calculateTenor((maturityDate.toEpochDay() - settlementDate.toEpochDay()) / 365.25)).ordinal();
+        positions.set(position, Position.EMPTY);
+        indexById.put(id, position);
+        // The volatile write publishes the terms to the updating threads
+        size = position + 1;
+        return position;
+    }
+
+    public synchronized int indexOf(String id) {
+        Integer position = indexById.get(id);
+        return position == null ? -1 : position;
+    }
+
+    // New clean price; the yield is solved from the position's previous one
+    public void setPrice(int position, double cleanPrice) {
+        checkPosition(position);
+        SolverResult solverResult = new SolverResult();
+        Bond.getYieldSolver().solve(faceValue[position], couponRate[position], couponFrequency[position], periods[position],
+                firstPeriod[position], cleanPrice + accruedInterest[position], positions.get(position).yieldToMaturity, solverResult);
+        quote(position, cleanPrice, solverResult.getYield());
+    }
+
+    public void setYieldToMaturity(int position, double yieldToMaturity) {
+        checkPosition(position);
+        quote(position, Double.NaN, yieldToMaturity);
+    }
+
+    // Number of bonds held; negative for a short position
+    public void setQuantity(int position, double quantity) {
+        checkPosition(position);
+        update(position, current -> current.withQuantity(quantity));
+    }
+
+    public void addQuantity(int position, double quantity) {
+        checkPosition(position);
+        update(position, current -> current.withQuantity(current.quantity + quantity));
+    }
+
+    private void quote(int position, double cleanPrice, double yieldToMaturity) {
+        AnalyticsResult analytics = new AnalyticsResult();
+        AnalyticsKernel.calculate(faceValue[position], couponRate[position], couponFrequency[position], periods[position],
+                firstPeriod[position], yieldToMaturity, analytics);
+        double price = Double.isNaN(cleanPrice) ? analytics.getPrice() - accruedInterest[position] : cleanPrice;
+        update(position, current -> current.withQuote(price, yieldToMaturity, analytics));
+    }
+
+    private void update(int position, UnaryOperator<Position> change) {
+        int stripe = position & stripeMask;
+        int offset = bucket[position] * MEASURES;
+        while (true) {
+            while (gate.get() != 0) {
+                Thread.yield();
+            }
+            StripeState current = stripes.get(stripe);
+            current.publish(positions);
+            Position before = positions.get(position);
+            Position after = change.apply(before);
+            double[] totals = current.totals.clone();
+            after.addTo(totals, offset, 1.0);
+            before.addTo(totals, offset, -1.0);
+            StripeState next = new StripeState(totals, position, before, after);
+            if (stripes.compareAndSet(stripe, current, next)) {
+                next.publish(positions);
+                updates.increment();
+                return;
+            }
+            retries.increment();
+        }
+    }
+
+    // Totals of every bucket at one instant
+    public RiskSnapshot snapshot() {
+        StripeState[] seen = new StripeState[stripes.length()];
+        collect(seen);
+        int attempts = 0;
+        boolean gated = false;
+        try {
+            while (!collect(seen)) {
+                if (++attempts == SNAPSHOT_ATTEMPTS) {
+                    gate.incrementAndGet();
+                    gated = true;
+                    gatedSnapshots.increment();
+                }
+            }
+        } finally {
+            if (gated) {
+                gate.decrementAndGet();
+            }
+        }
+        double[] totals = new double[BUCKETS * MEASURES];
+        for (StripeState state : seen) {
+            for (int i = 0; i < totals.length; i++) {
+                totals[i] += state.totals[i];
+            }
+        }
+        return new RiskSnapshot(totals, size);
+    }
+
+    // Reads every stripe into seen; true if none had changed since seen was last filled
+    private boolean collect(StripeState[] seen) {
+        boolean unchanged = true;
+        for (int i = 0; i < seen.length; i++) {
+            StripeState state = stripes.get(i);
+            if (state != seen[i]) {
+                seen[i] = state;
+                unchanged = false;
+            }
+        }
+        return unchanged;
+    }
+
+    // Replaces every stripe's running totals with a fresh sum over its positions, dropping the
+    // rounding the deltas have piled up; safe to call while updates are going on
+    public void recompute() {
+        for (int s = 0; s < stripes.length(); s++) {
+            while (true) {
+                StripeState current = stripes.get(s);
+                current.publish(positions);
+                int count = size;
+                double[] totals = new double[BUCKETS * MEASURES];
+                for (int position = s; position < count; position += stripes.length()) {
+                    positions.get(position).addTo(totals, bucket[position] * MEASURES, 1.0);
+                }
+                if (stripes.compareAndSet(s, current, new StripeState(totals, -1, null, null))) {
+                    break;
+                }
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String getId(int position) {
+        return positionId[checkPosition(position)];
+    }
+
+    public Tenor getTenor(int position) {
+        return Tenor.at(bucket[checkPosition(position)]);
+    }
+
+    public double getQuantity(int position) {
+        return positions.get(checkPosition(position)).quantity;
+    }
+
+    public double getPrice(int position) {
+        return positions.get(checkPosition(position)).cleanPrice;
+    }
+
+    public double getYieldToMaturity(int position) {
+        return positions.get(checkPosition(position)).yieldToMaturity;
+    }
+
+    // Changes applied, and compare-and-set attempts lost to another thread on the same stripe
+    public long getUpdateCount() {
+        return updates.sum();
+    }
+
+    public long getRetryCount() {
+        return retries.sum();
+    }
+
+    // Snapshots that had to hold the writers off to finish
+    public long getGatedSnapshotCount() {
+        return gatedSnapshots.sum();
+    }
+
+    private int checkPosition(int position) {
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException("Position " + position + " is outside the " + size + " registered.");
+        }
+        return position;
+    }
+
+    // One position's quantity and quote, with the per-bond analytics at the quote. Never
+    // changed in place: every change makes a new one, so states can be compared by identity.
+    private static final class Position {
+        static final Position EMPTY = new Position(0.0, Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN);
+
+        final double quantity;
+        final double cleanPrice;
+        final double yieldToMaturity;
+        final double dirtyPrice;
+        final double modifiedDuration;
+        final double convexity;
+
+        Position(double quantity, double cleanPrice, double yieldToMaturity, double dirtyPrice, double modifiedDuration, double convexity) {
+            this.quantity = quantity;
+            this.cleanPrice = cleanPrice;
+            this.yieldToMaturity = yieldToMaturity;
+            this.dirtyPrice = dirtyPrice;
+            this.modifiedDuration = modifiedDuration;
+            this.convexity = convexity;
+        }
+
+        Position withQuantity(double quantity) {
+            return new Position(quantity, cleanPrice, yieldToMaturity, dirtyPrice, modifiedDuration, convexity);
+        }
+
+        Position withQuote(double cleanPrice, double yieldToMaturity, AnalyticsResult analytics) {
+            return new Position(quantity, cleanPrice, yieldToMaturity, analytics.getPrice(), analytics.getModifiedDuration(), analytics.getConvexity());
+        }
+
+        // Adds sign times this position's contribution to the bucket's measures; nothing until it
+        // has a quantity and a usable quote, so one bad quote can't turn the totals into NaN
+        void addTo(double[] totals, int offset, double sign) {
+            double marketValue = quantity * dirtyPrice;
+            double durationExposure = marketValue * modifiedDuration;
+            double convexityExposure = marketValue * convexity;
+            if (!Double.isFinite(durationExposure) || !Double.isFinite(convexityExposure)) {
+                return;
+            }
+            totals[offset + MARKET_VALUE] += sign * marketValue;
+            totals[offset + DV01] += sign * durationExposure * 0.0001;
+            totals[offset + DURATION_EXPOSURE] += sign * durationExposure;
+            totals[offset + CONVEXITY_EXPOSURE] += sign * convexityExposure;
+        }
+    }
+
+    // A stripe's totals, and the position change they were the first to include
+    private static final class StripeState {
+        final double[] totals;
+        final int position;
+        final Position before;
+        final Position after;
+
+        StripeState(double[] totals, int position, Position before, Position after) {
+            this.totals = totals;
+            this.position = position;
+            this.before = before;
+            this.after = after;
+        }
+
+        // Writes the change to the position unless it is there already; harmless to repeat
+        void publish(AtomicReferenceArray<Position> positions) {
+            if (position >= 0) {
+                positions.compareAndSet(position, before, after);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int positionCount = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int threadCount = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        RiskAggregator aggregator = new RiskAggregator(positionCount);
+        LocalDate settlement = LocalDate.of(2024, 5, 20);
+        int[] frequencies = {1, 2, 4, 12};
+        Random random = new Random(42);
+        for (int i = 0; i < positionCount; i++) {
+            int position = aggregator.register("BOND" + i, 1000, 0.02 + (i % 60) * 0.001,
+                    settlement.plusMonths(1 + i % 359).plusDays(i % 28), frequencies[i % frequencies.length], settlement);
+            aggregator.setQuantity(position, 10 + random.nextInt(1000));
+            aggregator.setPrice(position, 900 + random.nextInt(20_000) / 100.0);
+        }
+        System.out.println(aggregator.snapshot());
+
+        // Price moves, yield moves and trades from every thread; snapshots read in between
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        long before = aggregator.getUpdateCount();
+        Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threadCount; t++) {
+            threads[t] = new Thread(() -> {
+                ThreadLocalRandom local = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    int position = local.nextInt(positionCount);
+                    switch (local.nextInt(3)) {
+                        case 0:
+                            aggregator.setPrice(position, aggregator.getPrice(position) + local.nextInt(-10, 11) / 100.0);
+                            break;
+                        case 1:
+                            aggregator.setYieldToMaturity(position, aggregator.getYieldToMaturity(position) + local.nextInt(-5, 6) / 10000.0);
+                            break;
+                        default:
+                            aggregator.addQuantity(position, local.nextInt(-5, 6));
+                    }
+                }
+            }, "risk-update-" + t);
+            threads[t].start();
+        }
+        long snapshots = 0;
+        long snapshotNanos = 0;
+        while (System.nanoTime() < deadline) {
+            long start = System.nanoTime();
+            aggregator.snapshot();
+            snapshotNanos += System.nanoTime() - start;
+            snapshots++;
+            Thread.sleep(1);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long applied = aggregator.getUpdateCount() - before;
+
+        RiskSnapshot running = aggregator.snapshot();
+        aggregator.recompute();
+        RiskSnapshot fresh = aggregator.snapshot();
+        System.out.println(running);
+        System.out.printf("%d updates from %d threads in %d s (%.0f per second), %d retries%n", applied, threadCount, seconds,
+                (double) applied / seconds, aggregator.getRetryCount());
+        System.out.printf("%d snapshots, %.1f us each, %d of them gated%n", snapshots, snapshotNanos / 1000.0 / Math.max(snapshots, 1),
+                aggregator.getGatedSnapshotCount());
+        System.out.printf("Running totals against a full recompute: market value %.6g, DV01 %.6g apart%n",
+                running.getTotalMarketValue() - fresh.getTotalMarketValue(), running.getTotalDv01() - fresh.getTotalDv01());
+    }
+}
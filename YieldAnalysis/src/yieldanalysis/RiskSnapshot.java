@@ -0,0 +1,95 @@
+package yieldanalysis;
+
+// Portfolio risk by tenor bucket (the buckets of Bond.getTenor()) as of one instant: market
+// value, DV01, and market value times modified duration and times convexity. Totals are
+// indexed bucket-major, at tenor.ordinal() * RiskAggregator.MEASURES + measure. Positions
+// without a price or yield count for nothing.
+public class RiskSnapshot {
+
+    private final double[] totals;
+    private final int positionCount;
+
+    RiskSnapshot(double[] totals, int positionCount) {
+        this.totals = totals;
+        this.positionCount = positionCount;
+    }
+
+    public int positionCount() {
+        return positionCount;
+    }
+
+    // Dirty market value, quantity times dirty price
+    public double getMarketValue(Tenor tenor) {
+        return totals[tenor.ordinal() * RiskAggregator.MEASURES + RiskAggregator.MARKET_VALUE];
+    }
+
+    // Loss in market value for a one basis point rise in every yield
+    public double getDv01(Tenor tenor) {
+        return totals[tenor.ordinal() * RiskAggregator.MEASURES + RiskAggregator.DV01];
+    }
+
+    public double getDurationExposure(Tenor tenor) {
+        return totals[tenor.ordinal() * RiskAggregator.MEASURES + RiskAggregator.DURATION_EXPOSURE];
+    }
+
+    public double getConvexityExposure(Tenor tenor) {
+        return totals[tenor.ordinal() * RiskAggregator.MEASURES + RiskAggregator.CONVEXITY_EXPOSURE];
+    }
+
+    // Market-value-weighted modified duration of the bucket, or NaN if it is empty
+    public double getDuration(Tenor tenor) {
+        double marketValue = getMarketValue(tenor);
+        return marketValue == 0.0 ? Double.NaN : getDurationExposure(tenor) / marketValue;
+    }
+
+    public double getConvexity(Tenor tenor) {
+        double marketValue = getMarketValue(tenor);
+        return marketValue == 0.0 ? Double.NaN : getConvexityExposure(tenor) / marketValue;
+    }
+
+    public double getTotalMarketValue() {
+        return total(RiskAggregator.MARKET_VALUE);
+    }
+
+    public double getTotalDv01() {
+        return total(RiskAggregator.DV01);
+    }
+
+    public double getTotalDurationExposure() {
+        return total(RiskAggregator.DURATION_EXPOSURE);
+    }
+
+    public double getTotalConvexityExposure() {
+        return total(RiskAggregator.CONVEXITY_EXPOSURE);
+    }
+
+    public double getDuration() {
+        double marketValue = getTotalMarketValue();
+        return marketValue == 0.0 ? Double.NaN : getTotalDurationExposure() / marketValue;
+    }
+
+    public double getConvexity() {
+        double marketValue = getTotalMarketValue();
+        return marketValue == 0.0 ? Double.NaN : getTotalConvexityExposure() / marketValue;
+    }
+
+    private double total(int measure) {
+        double total = 0.0;
+        for (int bucket = 0; bucket < Tenor.count(); bucket++) {
+            total += totals[bucket * RiskAggregator.MEASURES + measure];
+        }
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder(String.format("%-10s %18s %14s %10s %10s%n", "Tenor", "Market value", "DV01", "Duration", "Convexity"));
+        for (int bucket = 0; bucket < Tenor.count(); bucket++) {
+            Tenor tenor = Tenor.at(bucket);
+            text.append(String.format("%-10s %18.2f %14.2f %10.4f %10.4f%n", tenor.getLabel(), getMarketValue(tenor), getDv01(tenor),
+                    getDuration(tenor), getConvexity(tenor)));
+        }
+        text.append(String.format("%-10s %18.2f %14.2f %10.4f %10.4f", "Total", getTotalMarketValue(), getTotalDv01(), getDuration(), getConvexity()));
+        return text.toString();
+    }
+}
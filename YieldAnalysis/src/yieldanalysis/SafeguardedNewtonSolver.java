@@ -0,0 +1,97 @@
+package yieldanalysis;
+
+// Newton's method on the closed-form annuity price, safeguarded by a bracket on the yield.
+// The price is strictly decreasing and convex in the yield, so every evaluation tells us
+// which side of the root we are on; any Newton step that leaves the bracket (or is not
+// finite) is replaced by bisection, which guarantees convergence. Each iteration costs
+// O(1) instead of O(n), and a warm start near the answer typically needs one or two steps.
+public class SafeguardedNewtonSolver implements YieldSolver {
+
+    private static final Metrics.Counter SOLVES = Metrics.counter("solver.solves");
+    private static final Metrics.Counter ITERATIONS = Metrics.counter("solver.iterations");
+    private static final Metrics.Counter FAILURES = Metrics.counter("solver.failures");
+
+    private final double tolerance;
+    private final int maxIterations;
+
+    public SafeguardedNewtonSolver() {
+        this(1e-10, 100);
+    }
+
+    public SafeguardedNewtonSolver(double tolerance, int maxIterations) {
+        if (tolerance <= 0 || maxIterations < 1) {
+            throw new IllegalArgumentException("Tolerance and max iterations must be positive.");
+        }
+        this.tolerance = tolerance;
+        this.maxIterations = maxIterations;
+    }
+
+    @Override
+    public void solve(double faceValue, double couponRate, int couponFrequency, int n, double firstPeriod, double price, double guess, SolverResult result) {
+        iterate(faceValue, couponRate, couponFrequency, n, firstPeriod, price, guess, result);
+        SOLVES.increment();
+        ITERATIONS.add(result.getIterations());
+        if (!result.isConverged()) {
+            FAILURES.increment();
+            MetricsEvents.YieldSolveFailure event = new MetricsEvents.YieldSolveFailure();
+            if (event.shouldCommit()) {
+                event.faceValue = faceValue;
+                event.couponRate = couponRate;
+                event.couponFrequency = couponFrequency;
+                event.periods = n;
+                event.price = price;
+                event.guess = guess;
+                event.iterations = result.getIterations();
+                event.commit();
+            }
+        }
+    }
+
+    private void iterate(double faceValue, double couponRate, int couponFrequency, int n, double firstPeriod, double price, double guess, SolverResult result) {
+        if (n <= 0 || !(price > 0)) {
+            // No cash flows left to discount (or nothing to match), so there is no yield to find
+            result.set(Double.NaN, 0, false);
+            return;
+        }
+
+        // The periodic rate must stay above -100%
+        double low = -couponFrequency * (1 - 1e-9);
+        double high = Double.POSITIVE_INFINITY;
+        double ytm = Double.isFinite(guess) ? guess : initialGuess(faceValue, couponRate, couponFrequency, n - 1 + firstPeriod, price);
+        if (ytm <= low) {
+            ytm = 0.0;
+        }
+
+        for (int iteration = 1; iteration <= maxIterations; iteration++) {
+            double error = AnnuityFormula.price(faceValue, couponRate, couponFrequency, n, firstPeriod, ytm) - price;
+            if (error == 0) {
+                result.set(ytm, iteration, true);
+                return;
+            }
+            if (error > 0) {
+                low = ytm;
+            } else {
+                high = ytm;
+            }
+
+            double derivative = AnnuityFormula.priceDerivative(faceValue, couponRate, couponFrequency, n, firstPeriod, ytm);
+            double next = ytm - error / derivative;
+            if (!(next > low && next < high)) {
+                next = Double.isInfinite(high) ? ytm + Math.max(1.0, Math.abs(ytm)) : 0.5 * (low + high);
+            }
+
+            if (Math.abs(next - ytm) < tolerance) {
+                result.set(next, iteration, true);
+                return;
+            }
+            ytm = next;
+        }
+        result.set(ytm, maxIterations, false);
+    }
+
+    // Textbook approximation: annual income plus straight-line pull to par, over the average of price and par
+    private static double initialGuess(double faceValue, double couponRate, int couponFrequency, double periods, double price) {
+        double years = periods / couponFrequency;
+        return (faceValue * couponRate + (faceValue - price) / years) / ((faceValue + price) / 2);
+    }
+}
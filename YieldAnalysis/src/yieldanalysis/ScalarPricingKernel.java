@@ -0,0 +1,77 @@
+package yieldanalysis;
+
+// One lane at a time. Also finishes the lanes left over after the last full vector in
+// VectorPricingKernel, so both give the same answer for every lane.
+final class ScalarPricingKernel extends BatchPricingKernel {
+
+    // Below this periodic rate the annuity is replaced by its limit at i = 0, as in AnnuityFormula
+    static final double ZERO_RATE = 1e-12;
+
+    @Override
+    public void priceBonds(double[] faceValue, double[] couponRate, int[] couponFrequency, int[] periods,
+            double[] firstPeriod, double[] yields, double[] prices, double[] derivatives, int count) {
+        priceBonds(faceValue, couponRate, couponFrequency, periods, firstPeriod, yields, prices, derivatives, 0, count);
+    }
+
+    @Override
+    public void priceYields(double faceValue, double couponRate, int couponFrequency, int n, double firstPeriod,
+            double[] yields, double[] prices, double[] derivatives, int count) {
+        priceYields(faceValue, couponRate, couponFrequency, n, firstPeriod, yields, prices, derivatives, 0, count);
+    }
+
+    @Override
+    public String getName() {
+        return "scalar";
+    }
+
+    static void priceBonds(double[] faceValue, double[] couponRate, int[] couponFrequency, int[] periods,
+            double[] firstPeriod, double[] yields, double[] prices, double[] derivatives, int from, int to) {
+        for (int j = from; j < to; j++) {
+            price(faceValue[j], couponRate[j], couponFrequency[j], periods[j], firstPeriod[j], yields[j], prices, derivatives, j);
+        }
+    }
+
+    static void priceYields(double faceValue, double couponRate, int couponFrequency, int n, double firstPeriod,
+            double[] yields, double[] prices, double[] derivatives, int from, int to) {
+        for (int j = from; j < to; j++) {
+            price(faceValue, couponRate, couponFrequency, n, firstPeriod, yields[j], prices, derivatives, j);
+        }
+    }
+
+    // AnnuityFormula.price and priceDerivative (with firstPeriod) fused, so the logs and
+    // exponentials are taken once
+    private static void price(double faceValue, double couponRate, int couponFrequency, int n, double firstPeriod,
+            double yieldToMaturity, double[] prices, double[] derivatives, int j) {
+        if (n <= 0) {
+            prices[j] = faceValue;
+            if (derivatives != null) {
+                derivatives[j] = 0.0;
+            }
+            return;
+        }
+        double couponPayment = faceValue * couponRate / couponFrequency;
+        double i = yieldToMaturity / couponFrequency;
+        double logV = -Math.log1p(i);
+
+        // Price at whole periods and its derivative in i
+        double price;
+        double slope;
+        if (Math.abs(i) < ZERO_RATE) {
+            price = couponPayment * n + faceValue;
+            slope = -(couponPayment * n * (n + 1) / 2.0 + n * faceValue);
+        } else {
+            double vn = Math.exp(n * logV);
+            double oneMinusVn = -Math.expm1(n * logV);
+            double vn1 = vn / (1 + i);
+            price = couponPayment * oneMinusVn / i + faceValue * vn;
+            slope = couponPayment * (n * vn1 / i - oneMinusVn / (i * i)) - n * faceValue * vn1;
+        }
+
+        // (1 + i)^(1 - firstPeriod) moves every flow forward to the real settlement
+        double shift = Math.exp(-(1 - firstPeriod) * logV);
+        prices[j] = shift * price;
+        if (derivatives != null) {
+            derivatives[j] = shift * (slope + price * (1 - firstPeriod) / (1 + i)) / couponFrequency;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package yieldanalysis;
+
+import java.util.List;
+
+// Profit and loss of every bond under every scenario, as the change in dirty price per bond.
+// Both matrices are flat primitive arrays, scenario-major: the entry for (scenario, bond) is at
+// scenario * bondCount + bond. Bonds without a yield have NaN entries.
+public class ScenarioResult {
+
+    private final List<CurveShock> shocks;
+    private final int bondCount;
+    private final double[] pnl;
+    private final double[] approximatePnl;
+
+    ScenarioResult(List<CurveShock> shocks, int bondCount, double[] pnl, double[] approximatePnl) {
+        this.shocks = shocks;
+        this.bondCount = bondCount;
+        this.pnl = pnl;
+        this.approximatePnl = approximatePnl;
+    }
+
+    public int scenarioCount() {
+        return shocks.size();
+    }
+
+    public int bondCount() {
+        return bondCount;
+    }
+
+    public CurveShock getShock(int scenario) {
+        return shocks.get(scenario);
+    }
+
+    // From repricing every cash flow on the shocked curve
+    public double getPnl(int scenario, int bond) {
+        return pnl[index(scenario, bond)];
+    }
+
+    // From the bond's modified duration and convexity, as in Bond
+    public double getApproximatePnl(int scenario, int bond) {
+        return approximatePnl[index(scenario, bond)];
+    }
+
+    // Sums over the bonds that have a yield
+    public double getTotalPnl(int scenario) {
+        return total(pnl, scenario);
+    }
+
+    public double getTotalApproximatePnl(int scenario) {
+        return total(approximatePnl, scenario);
+    }
+
+    // The arrays are shared, not copied; callers must not modify them
+
+    public double[] getPnlMatrix() {
+        return pnl;
+    }
+
+    public double[] getApproximatePnlMatrix() {
+        return approximatePnl;
+    }
+
+    private double total(double[] matrix, int scenario) {
+        double total = 0.0;
+        int from = index(scenario, 0);
+        for (int i = from; i < from + bondCount; i++) {
+            if (!Double.isNaN(matrix[i])) {
+                total += matrix[i];
+            }
+        }
+        return total;
+    }
+
+    private int index(int scenario, int bond) {
+        if (scenario < 0 || scenario >= shocks.size() || bond < 0 || bond >= bondCount) {
+            throw new IndexOutOfBoundsException("No result for scenario " + scenario + ", bond " + bond + ".");
+        }
+        return scenario * bondCount + bond;
+    }
+}
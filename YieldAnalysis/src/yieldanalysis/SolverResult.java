@@ -0,0 +1,37 @@
+package yieldanalysis;
+
+// Mutable outcome of a yield solve. Callers that solve in a loop keep one instance
+// and pass it back in, so the solver itself does not allocate.
+public class SolverResult {
+
+    private double yield = Double.NaN;
+    private int iterations;
+    private boolean converged;
+
+    void set(double yield, int iterations, boolean converged) {
+        this.yield = yield;
+        this.iterations = iterations;
+        this.converged = converged;
+    }
+
+    public double getYield() {
+        return yield;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    public boolean isConverged() {
+        return converged;
+    }
+
+    @Override
+    public String toString() {
+        return "SolverResult{" +
+                "yield=" + yield +
+                ", iterations=" + iterations +
+                ", converged=" + converged +
+                '}';
+    }
+}
@@ -0,0 +1,186 @@
+package yieldanalysis;
+
+import java.time.LocalDate;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Z-spreads and I-spreads over the treasury curve, for single bonds or whole books.
+//
+// The Z-spread is the constant spread over the (continuously compounded) zero curve at which
+// the bond's cash flows, each discounted off the curve at its own time, add up to the dirty
+// price. The I-spread is the yield to maturity less the par curve interpolated at maturity,
+// where Bond.calculateSpread only takes the nearest DGS point.
+//
+// TreasuryMarketData bootstraps each settlement date's discount curve once; here it is only
+// read, so every worker thread shares it. A bond's discount factors are looked up once into a
+// scratch array, and the spread is then a safeguarded Newton search over the schedule's own
+// arrays. The price is decreasing and convex in the spread, so as in SafeguardedNewtonSolver
+// each pass narrows a bracket and any step out of it is replaced by bisection. Nothing is
+// allocated per bond once the scratch arrays are long enough.
+public class SpreadEngine {
+
+    private static final double TOLERANCE = 1e-10;
+    private static final int MAX_ITERATIONS = 100;
+
+    // Bonds per fork-join leaf
+    private static final int BATCH_SIZE = 256;
+
+    private final TreasuryMarketData marketData;
+
+    public SpreadEngine(TreasuryMarketData marketData) {
+        this.marketData = marketData;
+    }
+
+    public SpreadResult calculate(CashFlowSchedule schedule, double cleanPrice) {
+        SpreadResult result = new SpreadResult(1);
+        LocalDate settlementDate = schedule.getSettlementDate();
+        new Scratch().calculate(schedule, cleanPrice + schedule.getAccruedInterest(), schedule.yieldFromCleanPrice(cleanPrice),
+                marketData.getCurve(settlementDate), marketData.getDiscountCurve(settlementDate), result, 0);
+        return result;
+    }
+
+    // The portfolio must have been calculated; its prices and yields are used as they are
+    public SpreadResult calculate(BondPortfolio portfolio) {
+        return calculate(portfolio, ForkJoinPool.commonPool());
+    }
+
+    public SpreadResult calculate(BondPortfolio portfolio, ForkJoinPool pool) {
+        SpreadResult result = new SpreadResult(portfolio.size());
+        if (portfolio.size() > 0) {
+            pool.invoke(new SpreadTask(portfolio, result, 0, portfolio.size()));
+        }
+        return result;
+    }
+
+    // Per-thread working array for one bond at a time
+    private static final class Scratch {
+        private double[] discount = new double[64];
+
+        void calculate(CashFlowSchedule schedule, double dirtyPrice, double ytm, YieldCurve curve, DiscountCurve discountCurve,
+                SpreadResult result, int bond) {
+            if (curve == null || discountCurve == null) {
+                result.set(bond, dirtyPrice, Double.NaN, Double.NaN, Double.NaN, 0);
+                return;
+            }
+            double maturity = (schedule.getMaturityDate().toEpochDay() - schedule.getSettlementDate().toEpochDay()) / 365.25;
+            double treasuryYield = curve.yieldAt(maturity);
+
+            double[] times = schedule.yearFractions();
+            double[] amounts = schedule.amounts();
+            int n = amounts.length;
+            if (n == 0 || !(dirtyPrice > 0)) {
+                result.set(bond, dirtyPrice, Double.NaN, treasuryYield, ytm - treasuryYield, 0);
+                return;
+            }
+            if (discount.length < n) {
+                discount = new double[Math.max(n, 2 * discount.length)];
+            }
+            for (int k = 0; k < n; k++) {
+                discount[k] = discountCurve.discountFactor(times[k]);
+            }
+
+            // The bond's own yield, continuously compounded, less the zero rate at maturity
+            int frequency = schedule.getCouponFrequency();
+            double z = Double.isNaN(ytm) ? 0.0 : frequency * Math.log1p(ytm / frequency) - discountCurve.zeroRate(times[n - 1]);
+            double low = Double.NEGATIVE_INFINITY;
+            double high = Double.POSITIVE_INFINITY;
+            for (int iteration = 1; iteration <= MAX_ITERATIONS; iteration++) {
+                double value = 0.0;
+                double slope = 0.0;
+                for (int k = 0; k < n; k++) {
+                    double pv = amounts[k] * discount[k] * Math.exp(-z * times[k]);
+                    value += pv;
+                    slope -= times[k] * pv;
+                }
+                double error = value - dirtyPrice;
+                if (error == 0) {
+                    result.set(bond, dirtyPrice, z, treasuryYield, ytm - treasuryYield, iteration);
+                    return;
+                }
+                if (error > 0) {
+                    low = z;
+                } else {
+                    high = z;
+                }
+
+                double next = z - error / slope;
+                if (!(next > low && next < high)) {
+                    if (Double.isInfinite(low) || Double.isInfinite(high)) {
+                        next = z + (error > 0 ? 1 : -1) * Math.max(0.01, Math.abs(z));
+                    } else {
+                        next = 0.5 * (low + high);
+                    }
+                }
+                if (Math.abs(next - z) < TOLERANCE) {
+                    result.set(bond, dirtyPrice, next, treasuryYield, ytm - treasuryYield, iteration);
+                    return;
+                }
+                z = next;
+            }
+            result.set(bond, dirtyPrice, Double.NaN, treasuryYield, ytm - treasuryYield, MAX_ITERATIONS);
+        }
+    }
+
+    public static void main(String[] args) {
+        BondPortfolio portfolio = new BondPortfolio();
+        LocalDate settlement = LocalDate.of(2024, 5, 20);
+        int[] frequencies = {1, 2, 4, 12};
+        for (int i = 0; i < 50_000; i++) {
+            portfolio.add(1000, 0.02 + (i % 60) * 0.001, settlement.plusMonths(12 + i % 348).plusDays(i % 28),
+                    frequencies[i % frequencies.length], settlement, 900 + i % 200, true);
+        }
+        portfolio.calculate();
+
+        SpreadEngine engine = new SpreadEngine(TreasuryMarketData.getDefault());
+        for (int run = 0; run < 3; run++) {
+            long start = System.nanoTime();
+            SpreadResult result = engine.calculate(portfolio);
+            long elapsed = System.nanoTime() - start;
+            System.out.println("Solved Z-spreads for " + result.bondCount() + " bonds in " + elapsed / 1_000_000 + " ms");
+            if (run == 2) {
+                for (int row : new int[] {0, 1, 2, 25_000, 49_999}) {
+                    System.out.printf("%s  Z-spread %8.2f bp  I-spread %8.2f bp  in %d passes%n", portfolio.getMaturityDate(row),
+                            result.getZSpread(row) * 10000, result.getISpread(row) * 10000, result.getIterations(row));
+                }
+            }
+        }
+    }
+
+    private class SpreadTask extends RecursiveAction {
+        private final BondPortfolio portfolio;
+        private final SpreadResult result;
+        private final int from;
+        private final int to;
+
+        SpreadTask(BondPortfolio portfolio, SpreadResult result, int from, int to) {
+            this.portfolio = portfolio;
+            this.result = result;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= BATCH_SIZE) {
+                Scratch scratch = new Scratch();
+                // Books tend to settle on few dates, so the curves are only looked up when the date changes
+                LocalDate curveDate = null;
+                YieldCurve curve = null;
+                DiscountCurve discountCurve = null;
+                for (int row = from; row < to; row++) {
+                    LocalDate settlementDate = portfolio.getSettlementDate(row);
+                    if (!settlementDate.equals(curveDate)) {
+                        curveDate = settlementDate;
+                        curve = marketData.getCurve(settlementDate);
+                        discountCurve = marketData.getDiscountCurve(settlementDate);
+                    }
+                    scratch.calculate(portfolio.getCashFlowSchedule(row), portfolio.getPrice(row) + portfolio.getAccruedInterest(row),
+                            portfolio.getYieldToMaturity(row), curve, discountCurve, result, row);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new SpreadTask(portfolio, result, from, mid), new SpreadTask(portfolio, result, mid, to));
+        }
+    }
+}
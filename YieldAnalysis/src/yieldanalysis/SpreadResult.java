@@ -0,0 +1,65 @@
+package yieldanalysis;
+
+// Z-spreads and I-spreads for a set of bonds, one entry per bond in flat arrays. Bonds without
+// a price, a yield or a treasury curve have NaN entries.
+public class SpreadResult {
+
+    private final int bondCount;
+    private final double[] dirtyPrice;
+    private final double[] zSpread;
+    private final double[] treasuryYield;
+    private final double[] iSpread;
+    private final int[] iterations;
+
+    SpreadResult(int bondCount) {
+        this.bondCount = bondCount;
+        this.dirtyPrice = new double[bondCount];
+        this.zSpread = new double[bondCount];
+        this.treasuryYield = new double[bondCount];
+        this.iSpread = new double[bondCount];
+        this.iterations = new int[bondCount];
+    }
+
+    void set(int bond, double dirtyPrice, double zSpread, double treasuryYield, double iSpread, int iterations) {
+        this.dirtyPrice[bond] = dirtyPrice;
+        this.zSpread[bond] = zSpread;
+        this.treasuryYield[bond] = treasuryYield;
+        this.iSpread[bond] = iSpread;
+        this.iterations[bond] = iterations;
+    }
+
+    public int bondCount() {
+        return bondCount;
+    }
+
+    public double getDirtyPrice(int bond) {
+        return dirtyPrice[checkBond(bond)];
+    }
+
+    // Constant spread over the continuously compounded zero curve, as a decimal
+    public double getZSpread(int bond) {
+        return zSpread[checkBond(bond)];
+    }
+
+    // Par curve yield interpolated at the bond's maturity
+    public double getTreasuryYield(int bond) {
+        return treasuryYield[checkBond(bond)];
+    }
+
+    // Yield to maturity less the interpolated treasury yield
+    public double getISpread(int bond) {
+        return iSpread[checkBond(bond)];
+    }
+
+    // Passes over the cash flows the Z-spread search took
+    public int getIterations(int bond) {
+        return iterations[checkBond(bond)];
+    }
+
+    private int checkBond(int bond) {
+        if (bond < 0 || bond >= bondCount) {
+            throw new IndexOutOfBoundsException("Bond " + bond + " is outside the " + bondCount + " results.");
+        }
+        return bond;
+    }
+}
@@ -0,0 +1,57 @@
+package yieldanalysis;
+
+// The constant-maturity treasury points published by FRED, in increasing maturity order.
+public enum Tenor {
+    ONE_MONTH("1 Month", "DGS1MO", 1.0 / 12),
+    THREE_MONTH("3 Month", "DGS3MO", 0.25),
+    SIX_MONTH("6 Month", "DGS6MO", 0.5),
+    ONE_YEAR("1 Year", "DGS1", 1),
+    TWO_YEAR("2 Year", "DGS2", 2),
+    THREE_YEAR("3 Year", "DGS3", 3),
+    FIVE_YEAR("5 Year", "DGS5", 5),
+    TEN_YEAR("10 Year", "DGS10", 10),
+    TWENTY_YEAR("20 Year", "DGS20", 20),
+    THIRTY_YEAR("30 Year", "DGS30", 30);
+
+    private static final Tenor[] VALUES = values();
+
+    private final String label;
+    private final String seriesId;
+    private final double years;
+
+    Tenor(String label, String seriesId, double years) {
+        this.label = label;
+        this.seriesId = seriesId;
+        this.years = years;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public String getSeriesId() {
+        return seriesId;
+    }
+
+    public double getYears() {
+        return years;
+    }
+
+    // Tenor for one of the labels Bond.getTenor() returns
+    public static Tenor fromLabel(String label) {
+        for (Tenor tenor : VALUES) {
+            if (tenor.label.equals(label)) {
+                return tenor;
+            }
+        }
+        throw new IllegalArgumentException("Unknown tenor: " + label);
+    }
+
+    static Tenor at(int ordinal) {
+        return VALUES[ordinal];
+    }
+
+    static int count() {
+        return VALUES.length;
+    }
+}
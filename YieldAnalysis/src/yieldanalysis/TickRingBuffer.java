@@ -0,0 +1,78 @@
+package yieldanalysis;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Bounded multi-producer, single-consumer queue of (bond, price, arrival time) ticks in
+// preallocated primitive arrays. Producers claim a sequence number with one CAS, fill the
+// slot and then mark it published with a release store of its sequence; the consumer only
+// reads a slot once it sees that mark, and frees slots by advancing head. Nothing is locked
+// and nothing is allocated per tick.
+final class TickRingBuffer {
+
+    interface Handler {
+        void onTick(int bond, double price, long arrivalNanos);
+    }
+
+    private final int mask;
+    private final int[] bonds;
+    private final double[] prices;
+    private final long[] arrivals;
+    // sequence + 1 once the slot holds that sequence's tick
+    private final AtomicLongArray published;
+    private final AtomicLong tail = new AtomicLong();
+    // Written only by the consumer
+    private volatile long head;
+
+    TickRingBuffer(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Ring buffer capacity must be a power of two.");
+        }
+        this.mask = capacity - 1;
+        this.bonds = new int[capacity];
+        this.prices = new double[capacity];
+        this.arrivals = new long[capacity];
+        this.published = new AtomicLongArray(capacity);
+    }
+
+    // False if the buffer is full
+    boolean offer(int bond, double price, long arrivalNanos) {
+        long sequence;
+        do {
+            sequence = tail.get();
+            if (sequence - head > mask) {
+                return false;
+            }
+        } while (!tail.compareAndSet(sequence, sequence + 1));
+
+        int slot = (int) sequence & mask;
+        bonds[slot] = bond;
+        prices[slot] = price;
+        arrivals[slot] = arrivalNanos;
+        published.lazySet(slot, sequence + 1);
+        return true;
+    }
+
+    // Hands up to limit published ticks to the handler, in order; consumer thread only
+    int drain(Handler handler, int limit) {
+        long next = head;
+        int drained = 0;
+        while (drained < limit) {
+            int slot = (int) next & mask;
+            if (published.get(slot) != next + 1) {
+                break;
+            }
+            handler.onTick(bonds[slot], prices[slot], arrivals[slot]);
+            next++;
+            drained++;
+        }
+        if (drained > 0) {
+            head = next;
+        }
+        return drained;
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+}
@@ -0,0 +1,361 @@
+package yieldanalysis;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Keeps yield, durations, convexity and spread current for a set of bonds from a stream of
+// live (bond, clean price) quotes.
+//
+// Any number of threads offer ticks; they go through a lock-free ring buffer to a single
+// consumer thread that owns all the per-bond state. The consumer drains whatever has arrived,
+// keeps only the latest price for each bond, and then recalculates each bond that moved once,
+// so a burst of quotes for one bond costs one solve. The solve starts from the bond's previous
+// yield rather than the coupon rate, which on a small price move takes a step or two.
+//
+// Listeners are called on the consumer thread after every recalculation and can read the new
+// values with the getters. End-to-end latency, from the arrival of the oldest tick folded into
+// an update to the update reaching the listeners, goes into getLatencyHistogram().
+public class TickStream {
+
+    public interface Listener {
+        void quoteUpdated(TickStream stream, int bond);
+    }
+
+    static final int DEFAULT_RING_CAPACITY = 1 << 16;
+
+    // Ticks taken from the ring before the dirty bonds are recalculated
+    private static final int DRAIN_LIMIT = 4096;
+    private static final int IDLE_SPINS = 100;
+    private static final long IDLE_PARK_NANOS = 50_000;
+
+    private final TreasuryMarketData marketData;
+    private final TickRingBuffer ring;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final Map<String, Integer> indexById = new HashMap<>();
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder ticks = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder updates = new LongAdder();
+
+    // Terms, fixed at registration
+    private final String[] bondId;
+    private final double[] faceValue;
+    private final double[] couponRate;
+    private final int[] couponFrequency;
+    private final int[] periods;
+    private final double[] firstPeriod;
+    private final double[] accruedInterest;
+    private final double[] treasuryYield;
+
+    // Written only by the consumer thread
+    private final double[] price;
+    private final double[] yieldToMaturity;
+    private final double[] macaulayDuration;
+    private final double[] modifiedDuration;
+    private final double[] convexity;
+    private final double[] spread;
+
+    // Coalescing: the latest price of each bond waiting to be recalculated
+    private final double[] pendingPrice;
+    private final long[] pendingSince;
+    private final boolean[] isDirty;
+    private final int[] dirty;
+    private int dirtyCount;
+
+    private final YieldSolver solver = Bond.getYieldSolver();
+    private final SolverResult solverResult = new SolverResult();
+    private final AnalyticsResult analytics = new AnalyticsResult();
+    private final TickRingBuffer.Handler coalesce = this::coalesce;
+
+    private volatile int size;
+    private volatile boolean running;
+    private Thread consumer;
+
+    // marketData may be null, in which case there are no spreads
+    public TickStream(TreasuryMarketData marketData, int maxBonds) {
+        this(marketData, maxBonds, DEFAULT_RING_CAPACITY);
+    }
+
+    public TickStream(TreasuryMarketData marketData, int maxBonds, int ringCapacity) {
+        if (maxBonds <= 0) {
+            throw new IllegalArgumentException("maxBonds must be positive.");
+        }
+        this.marketData = marketData;
+        this.ring = new TickRingBuffer(ringCapacity);
+        bondId = new String[maxBonds];
+        faceValue = new double[maxBonds];
+        couponRate = new double[maxBonds];
+        couponFrequency = new int[maxBonds];
+        periods = new int[maxBonds];
+        firstPeriod = new double[maxBonds];
+        accruedInterest = new double[maxBonds];
+        treasuryYield = new double[maxBonds];
+        price = new double[maxBonds];
+        yieldToMaturity = new double[maxBonds];
+        macaulayDuration = new double[maxBonds];
+        modifiedDuration = new double[maxBonds];
+        convexity = new double[maxBonds];
+        spread = new double[maxBonds];
+        pendingPrice = new double[maxBonds];
+        pendingSince = new long[maxBonds];
+        isDirty = new boolean[maxBonds];
+        dirty = new int[maxBonds];
+    }
+
+    // Adds a bond and returns its index for offer(); can be called while the stream runs
+    public synchronized int register(String id, double faceValue, double couponRate, LocalDate maturityDate, int couponFrequency, LocalDate settlementDate) {
+        if (indexById.containsKey(id)) {
+            throw new IllegalArgumentException("Bond " + id + " is already registered.");
+        }
+        int bond = size;
+        if (bond == bondId.length) {
+            throw new IllegalArgumentException("No room for more than " + bondId.length + " bonds.");
+        }
+        CashFlowSchedule schedule = new CashFlowSchedule(faceValue, couponRate, maturityDate, couponFrequency, settlementDate,
+                CashFlowSchedule.DayCount.ACT_ACT);
+        YieldCurve curve = marketData == null ? null : marketData.getCurve(settlementDate);
+
+        this.bondId[bond] = id;
+        this.faceValue[bond] = faceValue;
+        this.couponRate[bond] = couponRate;
+        this.couponFrequency[bond] = couponFrequency;
+        periods[bond] = schedule.size();
+        firstPeriod[bond] = schedule.getFirstPeriod();
+        accruedInterest[bond] = schedule.getAccruedInterest();
+        treasuryYield[bond] = curve == null ? Double.NaN
+                : curve.yieldAt((maturityDate.toEpochDay() - settlementDate.toEpochDay()) / 365.25);
+        price[bond] = Double.NaN;
+        yieldToMaturity[bond] = Double.NaN;
+        macaulayDuration[bond] = Double.NaN;
+        modifiedDuration[bond] = Double.NaN;
+        convexity[bond] = Double.NaN;
+        spread[bond] = Double.NaN;
+        indexById.put(id, bond);
+        // The volatile write publishes the terms to the consumer
+        size = bond + 1;
+        return bond;
+    }
+
+    public synchronized int indexOf(String id) {
+        Integer bond = indexById.get(id);
+        return bond == null ? -1 : bond;
+    }
+
+    // Queues a clean price for the bond; false if the ring is full and the tick was dropped
+    public boolean offer(int bond, double cleanPrice) {
+        if (bond < 0 || bond >= size) {
+            throw new IllegalArgumentException("No bond at index " + bond + ".");
+        }
+        if (ring.offer(bond, cleanPrice, System.nanoTime())) {
+            return true;
+        }
+        dropped.increment();
+        return false;
+    }
+
+    public boolean offer(String id, double cleanPrice) {
+        int bond = indexOf(id);
+        if (bond < 0) {
+            throw new IllegalArgumentException("Bond " + id + " is not registered.");
+        }
+        return offer(bond, cleanPrice);
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    public synchronized void start() {
+        if (consumer != null) {
+            return;
+        }
+        running = true;
+        consumer = new Thread(this::consume, "tick-stream");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    // Processes the ticks already queued, then stops the consumer
+    public void stop() throws InterruptedException {
+        Thread thread;
+        synchronized (this) {
+            thread = consumer;
+            consumer = null;
+            running = false;
+        }
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            thread.join();
+        }
+    }
+
+    private void consume() {
+        int idle = 0;
+        while (true) {
+            boolean stopping = !running;
+            int drained = ring.drain(coalesce, DRAIN_LIMIT);
+            if (drained > 0) {
+                idle = 0;
+                ticks.add(drained);
+                publishDirty();
+            } else if (stopping) {
+                return;
+            } else if (++idle < IDLE_SPINS) {
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    private void coalesce(int bond, double cleanPrice, long arrivalNanos) {
+        pendingPrice[bond] = cleanPrice;
+        if (!isDirty[bond]) {
+            isDirty[bond] = true;
+            pendingSince[bond] = arrivalNanos;
+            dirty[dirtyCount++] = bond;
+        }
+    }
+
+    private void publishDirty() {
+        for (int i = 0; i < dirtyCount; i++) {
+            int bond = dirty[i];
+            isDirty[bond] = false;
+            recalculate(bond, pendingPrice[bond]);
+            for (Listener listener : listeners) {
+                listener.quoteUpdated(this, bond);
+            }
+            latency.record(System.nanoTime() - pendingSince[bond]);
+        }
+        updates.add(dirtyCount);
+        dirtyCount = 0;
+    }
+
+    private void recalculate(int bond, double cleanPrice) {
+        double guess = Double.isNaN(yieldToMaturity[bond]) ? YieldSolver.NO_GUESS : yieldToMaturity[bond];
+        solver.solve(faceValue[bond], couponRate[bond], couponFrequency[bond], periods[bond], firstPeriod[bond],
+                cleanPrice + accruedInterest[bond], guess, solverResult);
+        double ytm = solverResult.getYield();
+        AnalyticsKernel.calculate(faceValue[bond], couponRate[bond], couponFrequency[bond], periods[bond], firstPeriod[bond], ytm, analytics);
+        price[bond] = cleanPrice;
+        yieldToMaturity[bond] = ytm;
+        macaulayDuration[bond] = analytics.getMacaulayDuration();
+        modifiedDuration[bond] = analytics.getModifiedDuration();
+        convexity[bond] = analytics.getConvexity();
+        spread[bond] = ytm - treasuryYield[bond];
+    }
+
+    // Values as of the last update; read them from a listener to see a consistent set
+
+    public int size() {
+        return size;
+    }
+
+    public String getBondId(int bond) {
+        return bondId[bond];
+    }
+
+    public double getPrice(int bond) {
+        return price[bond];
+    }
+
+    public double getYieldToMaturity(int bond) {
+        return yieldToMaturity[bond];
+    }
+
+    public double getMacaulayDuration(int bond) {
+        return macaulayDuration[bond];
+    }
+
+    public double getModifiedDuration(int bond) {
+        return modifiedDuration[bond];
+    }
+
+    public double getConvexity(int bond) {
+        return convexity[bond];
+    }
+
+    public double getAccruedInterest(int bond) {
+        return accruedInterest[bond];
+    }
+
+    public double getTreasuryYield(int bond) {
+        return treasuryYield[bond];
+    }
+
+    public double getSpread(int bond) {
+        return spread[bond];
+    }
+
+    public LatencyHistogram getLatencyHistogram() {
+        return latency;
+    }
+
+    // Ticks taken off the ring
+    public long getTickCount() {
+        return ticks.sum();
+    }
+
+    // Recalculations; ticks minus updates is how many were coalesced away
+    public long getUpdateCount() {
+        return updates.sum();
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    // java yieldanalysis.TickStream [bonds] [ticksPerSecond] [seconds]
+    public static void main(String[] args) throws InterruptedException {
+        int bonds = args.length > 0 ? Integer.parseInt(args[0]) : 5_000;
+        int rate = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        LocalDate settlement = LocalDate.of(2024, 5, 20);
+        TickStream stream = new TickStream(TreasuryMarketData.getDefault(), bonds);
+        int[] frequencies = {1, 2, 4, 12};
+        for (int i = 0; i < bonds; i++) {
+            stream.register("B" + i, 1000, 0.02 + (i % 60) * 0.001, settlement.plusMonths(12 + i % 348).plusDays(i % 28),
+                    frequencies[i % frequencies.length], settlement);
+        }
+        stream.start();
+
+        // Quotes wander around 950, and half of them go to the first 50 bonds so those burst. They
+        // are sent a millisecond's worth at a time so the producer doesn't spin on the consumer's core.
+        int perMillisecond = Math.max(1, rate / 1000);
+        long start = System.nanoTime();
+        long sent = 0;
+        long seed = 42;
+        for (int ms = 0; ms < seconds * 1000; ms++) {
+            long wait = start + ms * 1_000_000L - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            for (int i = 0; i < perMillisecond; i++) {
+                seed = seed * 6364136223846793005L + 1442695040888963407L;
+                int r = (int) (seed >>> 33);
+                int bond = (r & 1) == 0 ? r % Math.min(bonds, 50) : (r >>> 1) % bonds;
+                stream.offer(bond, 950 + (r % 1000) / 20.0);
+                sent++;
+            }
+        }
+        stream.stop();
+
+        long ticks = stream.getTickCount();
+        long updates = stream.getUpdateCount();
+        System.out.println("Sent " + sent + " ticks to " + bonds + " bonds in " + seconds + " s: " + updates + " updates, "
+                + (ticks - updates) + " coalesced, " + stream.getDroppedCount() + " dropped");
+        System.out.println("Tick to update latency: " + stream.getLatencyHistogram().summary(1_000, "us"));
+        System.out.printf("Bond 0: price %.3f, ytm %.5f, modified %.4f, convexity %.4f, spread %.5f%n", stream.getPrice(0),
+                stream.getYieldToMaturity(0), stream.getModifiedDuration(0), stream.getConvexity(0), stream.getSpread(0));
+    }
+}
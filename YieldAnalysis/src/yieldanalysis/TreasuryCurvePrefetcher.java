@@ -0,0 +1,112 @@
+package yieldanalysis;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Loads every DGS tenor for a whole observation range with one request per series, all ten
+// in flight at once on the asynchronous JDK HttpClient. A day's portfolio then costs ten
+// requests, however many bonds it holds.
+public class TreasuryCurvePrefetcher {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private static TreasuryCurvePrefetcher defaultPrefetcher;
+
+    private final FredClient client;
+    private final ExecutorService executor;
+    private final HttpClient httpClient;
+
+    public TreasuryCurvePrefetcher(FredClient client) {
+        this.client = client;
+        // Reading a streamed body blocks, so it gets its own (daemon) threads
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "treasury-prefetch");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.httpClient = HttpClient.newBuilder()
+                .executor(executor)
+                .connectTimeout(TIMEOUT)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    public static synchronized TreasuryCurvePrefetcher getDefault() {
+        if (defaultPrefetcher == null) {
+            defaultPrefetcher = new TreasuryCurvePrefetcher(new FredClient());
+        }
+        return defaultPrefetcher;
+    }
+
+    public TreasuryCurveTable prefetch(LocalDate start, LocalDate end) throws IOException {
+        return prefetch(start, end, null);
+    }
+
+    // Fetches the range and, if a cache is given, records every day of it there as well
+    // (days without an observation included, so later lookups in the range stay local)
+    public TreasuryCurveTable prefetch(LocalDate start, LocalDate end, TreasuryYieldCache cache) throws IOException {
+        try {
+            return prefetchAsync(start, end, cache).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw new IOException("Treasury curve prefetch failed", e.getCause());
+        }
+    }
+
+    public CompletableFuture<TreasuryCurveTable> prefetchAsync(LocalDate start, LocalDate end, TreasuryYieldCache cache) {
+        TreasuryCurveTable table = new TreasuryCurveTable(start, end);
+        CompletableFuture<?>[] series = new CompletableFuture<?>[Tenor.count()];
+
+        for (int i = 0; i < series.length; i++) {
+            Tenor tenor = Tenor.at(i);
+            HttpRequest request = HttpRequest.newBuilder(URI.create(client.observationsUrl(tenor.getSeriesId(), start, end)))
+                    .timeout(TIMEOUT)
+                    .GET()
+                    .build();
+            MetricsEvents.FredRequest event = new MetricsEvents.FredRequest();
+            event.begin();
+            long requestStart = Metrics.startTime();
+            // Each series writes only its own tenor column, so the callbacks don't contend
+            series[i] = httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream())
+                    .thenApplyAsync(response -> parse(tenor, response), executor)
+                    .whenComplete((observations, failure) ->
+                            FredClient.recordRequest(event, requestStart, tenor.getSeriesId(), start, end, failure == null))
+                    .thenAccept(observations -> {
+                        for (int j = 0; j < observations.size(); j++) {
+                            table.set(tenor, observations.dateAt(j), observations.yieldAt(j));
+                        }
+                        if (cache != null) {
+                            cache.putObservations(tenor.getSeriesId(), start, end, observations);
+                        }
+                    });
+        }
+        return CompletableFuture.allOf(series).thenApply(done -> table);
+    }
+
+    // Parses the body as it arrives instead of buffering the whole range response
+    private static FredObservations parse(Tenor tenor, HttpResponse<InputStream> response) {
+        FredObservations observations = new FredObservations();
+        try (InputStream in = response.body()) {
+            if (response.statusCode() != 200) {
+                throw new IOException("FRED returned HTTP " + response.statusCode() + " for " + tenor.getSeriesId());
+            }
+            FredObservationParser.parse(in, observations);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return observations;
+    }
+}
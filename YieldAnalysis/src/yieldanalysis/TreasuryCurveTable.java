@@ -0,0 +1,75 @@
+package yieldanalysis;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+// Dense in-memory table of treasury yields for every tenor and every calendar day in a range.
+// Yields are held in one primitive array, row per day; NaN marks a day with no observation.
+public class TreasuryCurveTable {
+
+    private final long startDay;
+    private final int days;
+    private final double[] yields;
+
+    public TreasuryCurveTable(LocalDate start, LocalDate end) {
+        if (end.isBefore(start)) {
+            throw new IllegalArgumentException("End date cannot be before start date.");
+        }
+        this.startDay = start.toEpochDay();
+        this.days = (int) (end.toEpochDay() - startDay) + 1;
+        this.yields = new double[days * Tenor.count()];
+        Arrays.fill(yields, Double.NaN);
+    }
+
+    public LocalDate getStartDate() {
+        return LocalDate.ofEpochDay(startDay);
+    }
+
+    public LocalDate getEndDate() {
+        return LocalDate.ofEpochDay(startDay + days - 1);
+    }
+
+    public boolean covers(LocalDate date) {
+        long day = date.toEpochDay() - startDay;
+        return day >= 0 && day < days;
+    }
+
+    void set(Tenor tenor, long epochDay, double yield) {
+        long day = epochDay - startDay;
+        if (day >= 0 && day < days) {
+            yields[(int) day * Tenor.count() + tenor.ordinal()] = yield;
+        }
+    }
+
+    // Yield observed on the day, or NaN if there was none (or the day is outside the table)
+    public double getYield(Tenor tenor, LocalDate date) {
+        long day = date.toEpochDay() - startDay;
+        if (day < 0 || day >= days) {
+            return Double.NaN;
+        }
+        return yields[(int) day * Tenor.count() + tenor.ordinal()];
+    }
+
+    // Most recent yield on or before the date, looking back at most maxLookbackDays, or NaN
+    public double getLatestYield(Tenor tenor, LocalDate date, int maxLookbackDays) {
+        long day = Math.min(date.toEpochDay() - startDay, days - 1);
+        long oldest = Math.max(date.toEpochDay() - startDay - maxLookbackDays, 0);
+        for (; day >= oldest; day--) {
+            double yield = yields[(int) day * Tenor.count() + tenor.ordinal()];
+            if (!Double.isNaN(yield)) {
+                return yield;
+            }
+        }
+        return Double.NaN;
+    }
+
+    // Copies all tenors observed on the day into curve (indexed by Tenor.ordinal())
+    public void getCurve(LocalDate date, double[] curve) {
+        long day = date.toEpochDay() - startDay;
+        if (day < 0 || day >= days) {
+            Arrays.fill(curve, 0, Tenor.count(), Double.NaN);
+            return;
+        }
+        System.arraycopy(yields, (int) day * Tenor.count(), curve, 0, Tenor.count());
+    }
+}
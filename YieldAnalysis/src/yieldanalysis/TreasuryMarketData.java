@@ -0,0 +1,230 @@
+package yieldanalysis;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// One place to ask for treasury yields and curves. The memory-mapped history answers first, and
+// for the dates it covers its answer is final: a tenor it has no value for (DGS30 in 2002-2006,
+// say) is simply missing, not a reason to ask FRED. Dates it doesn't cover go through the yield cache, which is filled a whole lookback window
+// (every tenor) at a time by the range prefetcher. Curves, and the discount curves bootstrapped
+// from them, are built once per date; for the last few days, which FRED may still be filling in,
+// they are only kept for TreasuryYieldCache.RECENT_GAP_TTL_MILLIS and then built again.
+public class TreasuryMarketData {
+
+    // Told which settlement dates may now give different curves after the data was refreshed
+    public interface ChangeListener {
+        void curvesChanged(LocalDate from, LocalDate to);
+    }
+
+    // A settlement on a weekend or holiday uses the latest observation of the previous week
+    static final int LOOKBACK_DAYS = 6;
+
+    // How long a date whose prefetch failed is left alone before FRED is tried for it again
+    static final long FAILURE_BACKOFF_MILLIS = 30_000;
+
+    private static final Metrics.Counter STORE_HITS = Metrics.counter("treasury.store_hits");
+    // Days walked back past the settlement date to find an observation
+    private static final Metrics.Counter LOOKBACK_RETRIES = Metrics.counter("treasury.lookback_retries");
+    private static final Metrics.Counter NOT_FOUND = Metrics.counter("treasury.not_found");
+    private static final Metrics.Counter PREFETCH_FAILURES = Metrics.counter("treasury.prefetch_failures");
+
+    private static TreasuryMarketData defaultMarketData;
+
+    private final TreasuryYieldStore store;
+    private final TreasuryYieldCache cache;
+    private final TreasuryCurvePrefetcher prefetcher;
+    private final ConcurrentHashMap<LocalDate, YieldCurve> curves = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<LocalDate, DiscountCurve> discountCurves = new ConcurrentHashMap<>();
+    // Dates whose prefetch failed, and when to try them again
+    private final ConcurrentHashMap<LocalDate, Long> unavailableUntil = new ConcurrentHashMap<>();
+    // Recent dates whose curves were built while FRED may not have published them yet, and when to build them again
+    private final ConcurrentHashMap<LocalDate, Long> provisionalUntil = new ConcurrentHashMap<>();
+    private final CopyOnWriteArrayList<ChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+    public TreasuryMarketData(TreasuryYieldStore store, TreasuryYieldCache cache, TreasuryCurvePrefetcher prefetcher) {
+        this.store = store;
+        this.cache = cache;
+        this.prefetcher = prefetcher;
+    }
+
+    public static synchronized TreasuryMarketData getDefault() {
+        if (defaultMarketData == null) {
+            defaultMarketData = new TreasuryMarketData(TreasuryYieldStore.getDefault(), TreasuryYieldCache.getDefault(),
+                    TreasuryCurvePrefetcher.getDefault());
+        }
+        return defaultMarketData;
+    }
+
+    // Lets batch jobs and benchmarks supply their own (for example offline, pre-filled) data
+    public static synchronized void setDefault(TreasuryMarketData marketData) {
+        defaultMarketData = marketData;
+    }
+
+    // Latest yield for the tenor on or before the date (within the lookback window), or NaN
+    public double getYield(Tenor tenor, LocalDate date) {
+        if (storeCovers(date)) {
+            return storeYield(tenor, date);
+        }
+        if (!cache.contains(tenor.getSeriesId(), date)) {
+            prefetch(date);
+        }
+        return cachedYield(tenor, date);
+    }
+
+    // All DGS points for the date, indexed by Tenor.ordinal(); NaN where there is none. At most
+    // one prefetch covers every tenor the cache doesn't have.
+    public void getCurvePoints(LocalDate date, double[] points) {
+        if (storeCovers(date)) {
+            for (int i = 0; i < Tenor.count(); i++) {
+                points[i] = storeYield(Tenor.at(i), date);
+            }
+            return;
+        }
+        boolean fetch = false;
+        for (int i = 0; i < Tenor.count(); i++) {
+            fetch |= !cache.contains(Tenor.at(i).getSeriesId(), date);
+        }
+        if (fetch) {
+            prefetch(date);
+        }
+        for (int i = 0; i < Tenor.count(); i++) {
+            points[i] = cachedYield(Tenor.at(i), date);
+        }
+    }
+
+    // True if the history holds the whole lookback window of the date
+    private boolean storeCovers(LocalDate date) {
+        return store != null && store.covers(date) && store.covers(date.minusDays(LOOKBACK_DAYS));
+    }
+
+    private double storeYield(Tenor tenor, LocalDate date) {
+        double yield = store.getLatestYield(tenor, date, LOOKBACK_DAYS);
+        if (Double.isNaN(yield)) {
+            NOT_FOUND.increment();
+        } else {
+            STORE_HITS.increment();
+        }
+        return yield;
+    }
+
+    // One range request per tenor fills the whole lookback window for every tenor, so later
+    // lookups settling on the same day never go to FRED. When it fails, the date isn't tried
+    // again for FAILURE_BACKOFF_MILLIS; in the meantime whatever the cache holds is used.
+    private void prefetch(LocalDate date) {
+        if (cache.isOffline() || prefetcher == null) {
+            return;
+        }
+        Long retryAt = unavailableUntil.get(date);
+        if (retryAt != null && System.currentTimeMillis() < retryAt) {
+            return;
+        }
+        try {
+            prefetcher.prefetch(date.minusDays(LOOKBACK_DAYS), date, cache);
+            if (unavailableUntil.remove(date) != null) {
+                // Whatever was worked out while the date had no data (a missing benchmark) is out of date
+                for (ChangeListener listener : listeners) {
+                    listener.curvesChanged(date, date);
+                }
+            }
+        } catch (IOException e) {
+            PREFETCH_FAILURES.increment();
+            unavailableUntil.put(date, System.currentTimeMillis() + FAILURE_BACKOFF_MILLIS);
+            MetricsEvents.treasuryDataFailure("prefetch", date.toString(), e);
+        }
+    }
+
+    // Walks back through the window in the cache only; the prefetch above was the one chance
+    // to reach FRED, so a failed one costs no further requests
+    private double cachedYield(Tenor tenor, LocalDate date) {
+        String seriesId = tenor.getSeriesId();
+        for (int i = 0; i <= LOOKBACK_DAYS; i++) {
+            Double yield = cache.peekYield(seriesId, date.minusDays(i));
+            if (yield != null) {
+                LOOKBACK_RETRIES.add(i);
+                return yield;
+            }
+        }
+        LOOKBACK_RETRIES.add(LOOKBACK_DAYS);
+        NOT_FOUND.increment();
+        return Double.NaN;
+    }
+
+    // Monotone-cubic benchmark curve for the date, or null if no treasury yields are available
+    public YieldCurve getCurve(LocalDate date) {
+        expireProvisional(date);
+        YieldCurve curve = curves.get(date);
+        if (curve != null) {
+            return curve;
+        }
+        double[] points = new double[Tenor.count()];
+        getCurvePoints(date, points);
+        if (Arrays.stream(points).allMatch(Double::isNaN)) {
+            // Not remembered as a curve; a failed prefetch holds off FRED for a while, then the next call retries
+            return null;
+        }
+        curve = YieldCurve.fromTreasuryYields(points, YieldCurve.Interpolation.MONOTONE_CUBIC);
+        if (!storeCovers(date) && TreasuryYieldCache.isRecent(date)) {
+            provisionalUntil.put(date, System.currentTimeMillis() + TreasuryYieldCache.RECENT_GAP_TTL_MILLIS);
+        }
+        YieldCurve existing = curves.putIfAbsent(date, curve);
+        return existing != null ? existing : curve;
+    }
+
+    // Discount curve bootstrapped from the date's par curve, or null if there is no curve
+    public DiscountCurve getDiscountCurve(LocalDate date) {
+        expireProvisional(date);
+        DiscountCurve discountCurve = discountCurves.get(date);
+        if (discountCurve != null) {
+            return discountCurve;
+        }
+        YieldCurve curve = getCurve(date);
+        if (curve == null) {
+            return null;
+        }
+        discountCurve = DiscountCurve.bootstrap(curve);
+        DiscountCurve existing = discountCurves.putIfAbsent(date, discountCurve);
+        return existing != null ? existing : discountCurve;
+    }
+
+    // Drops a recent date's curves once they are due to be built again, and tells the listeners
+    private void expireProvisional(LocalDate date) {
+        Long rebuildAt = provisionalUntil.get(date);
+        if (rebuildAt != null && System.currentTimeMillis() >= rebuildAt && provisionalUntil.remove(date, rebuildAt)) {
+            curves.remove(date);
+            discountCurves.remove(date);
+            for (ChangeListener listener : listeners) {
+                listener.curvesChanged(date, date);
+            }
+        }
+    }
+
+    public void addChangeListener(ChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeChangeListener(ChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    // Fetches the observations between the dates again, replacing what the cache holds
+    public void refresh(LocalDate start, LocalDate end) throws IOException {
+        prefetcher.prefetch(start, end, cache);
+        invalidate(start, end);
+    }
+
+    // Forgets the curves built from observations between the dates. Because of the lookback,
+    // settlements up to LOOKBACK_DAYS after the last observation are affected too.
+    public void invalidate(LocalDate start, LocalDate end) {
+        LocalDate last = end.plusDays(LOOKBACK_DAYS);
+        curves.keySet().removeIf(date -> !date.isBefore(start) && !date.isAfter(last));
+        discountCurves.keySet().removeIf(date -> !date.isBefore(start) && !date.isAfter(last));
+        unavailableUntil.keySet().removeIf(date -> !date.isBefore(start) && !date.isAfter(last));
+        provisionalUntil.keySet().removeIf(date -> !date.isBefore(start) && !date.isAfter(last));
+        for (ChangeListener listener : listeners) {
+            listener.curvesChanged(start, last);
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package yieldanalysis;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Treasury yields keyed by (series id, observation date), in front of FredClient.
+// Entries live in an LRU map and are appended to a local CSV file so they survive restarts;
+// once the file holds more than twice the live entries (plus some slack) it is rewritten.
+// Days FRED has no value for (weekends, holidays) are cached as well, so the lookback loop
+// in Bond doesn't go back to the network for them. Only for RECENT_DAYS days back, where
+// FRED may simply not have published yet, a missing value is kept for RECENT_GAP_TTL_MILLIS
+// and never written to the file. Expired entries are refreshed when
+// possible, but still served if FRED can't be reached; with -Dfred.offline=true the
+// network is never used.
+public class TreasuryYieldCache {
+
+    private static final String MISSING = ".";
+
+    // Days before today (and any after it) whose missing observations may still be published
+    static final int RECENT_DAYS = 3;
+    static final long RECENT_GAP_TTL_MILLIS = 15 * 60 * 1000;
+
+    // Superseded or evicted lines the store may hold beyond twice the live entries
+    static final int COMPACT_SLACK = 10_000;
+
+    private static final Metrics.Counter HITS = Metrics.counter("yield_cache.hits");
+    private static final Metrics.Counter MISSES = Metrics.counter("yield_cache.misses");
+    private static final Metrics.Counter STALE = Metrics.counter("yield_cache.stale_served");
+    // Reads and writes of the CSV file that failed; the entries stay in memory either way
+    private static final Metrics.Counter STORE_ERRORS = Metrics.counter("yield_cache.store_errors");
+
+    static {
+        Metrics.gauge("yield_cache.hit_rate", () -> {
+            long hits = HITS.get();
+            long total = hits + MISSES.get();
+            return total == 0 ? 0.0 : (double) hits / total;
+        });
+    }
+
+    private static TreasuryYieldCache defaultCache;
+
+    private final FredClient client;
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final Path storeFile;
+    private final boolean offline;
+    private final LinkedHashMap<Key, Entry> entries;
+
+    // Lines in the store file, live or not; guarded by this
+    private int storeLines;
+
+    private record Key(String seriesId, LocalDate date) {
+    }
+
+    // yield is NaN when FRED had no observation for the day
+    private record Entry(double yield, long fetchedAt) {
+    }
+
+    public TreasuryYieldCache(FredClient client, int maxEntries, Duration ttl, Path storeFile, boolean offline) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("Cache size must be positive.");
+        }
+        this.client = client;
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttl.toMillis();
+        this.storeFile = storeFile;
+        this.offline = offline;
+        this.entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > TreasuryYieldCache.this.maxEntries;
+            }
+        };
+        load();
+    }
+
+    // Shared instance used by Bond, stored in ~/.yieldanalysis/treasury-yields.csv unless
+    // -Dtreasury.cache.file says otherwise
+    public static synchronized TreasuryYieldCache getDefault() {
+        if (defaultCache == null) {
+            String file = System.getProperty("treasury.cache.file",
+                    Paths.get(System.getProperty("user.home"), ".yieldanalysis", "treasury-yields.csv").toString());
+            defaultCache = new TreasuryYieldCache(new FredClient(), 100_000, Duration.ofDays(7), Paths.get(file),
+                    Boolean.getBoolean("fred.offline"));
+        }
+        return defaultCache;
+    }
+
+    // Yield observed for the series on the day, or null if there is none (or it can't be fetched)
+    public Double getYield(String seriesId, LocalDate date) {
+        Key key = new Key(seriesId, date);
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+        }
+        if (entry != null && isFresh(date, entry)) {
+            HITS.increment();
+            return toYield(entry.yield());
+        }
+        MISSES.increment();
+        if (offline) {
+            return null;
+        }
+
+        try {
+            Double yield = client.fetchYield(seriesId, date);
+            put(seriesId, date, yield);
+            return yield;
+        } catch (IOException e) {
+            if (entry != null) {
+                // Stale, but better than nothing while FRED is unreachable
+                STALE.increment();
+                return toYield(entry.yield());
+            }
+            // FredClient has counted the failed request
+            MetricsEvents.treasuryDataFailure("fetch", seriesId + " " + date, e);
+            return null;
+        }
+    }
+
+    // Yield held for the day, expired or not, without ever going to FRED; null if none is held
+    // or FRED had no observation. For callers that have just prefetched (or failed to).
+    Double peekYield(String seriesId, LocalDate date) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(new Key(seriesId, date));
+        }
+        if (entry == null) {
+            MISSES.increment();
+            return null;
+        }
+        if (isFresh(date, entry)) {
+            HITS.increment();
+        } else {
+            STALE.increment();
+        }
+        return toYield(entry.yield());
+    }
+
+    // Records an observation (null when FRED has none for the day)
+    public void put(String seriesId, LocalDate date, Double yield) {
+        Entry entry = new Entry(yield == null ? Double.NaN : yield, System.currentTimeMillis());
+        synchronized (this) {
+            entries.put(new Key(seriesId, date), entry);
+            if (!isRecentGap(date, entry)) {
+                write(format(seriesId, date, entry), 1);
+            }
+        }
+    }
+
+    // Records a whole range for one series in a single write; every day in [start, end]
+    // without an observation is recorded as missing
+    void putObservations(String seriesId, LocalDate start, LocalDate end, FredObservations observations) {
+        long now = System.currentTimeMillis();
+        int next = 0;
+        StringBuilder lines = new StringBuilder();
+        int count = 0;
+        synchronized (this) {
+            for (long day = start.toEpochDay(); day <= end.toEpochDay(); day++) {
+                while (next < observations.size() && observations.dateAt(next) < day) {
+                    next++;
+                }
+                double yield = next < observations.size() && observations.dateAt(next) == day ? observations.yieldAt(next) : Double.NaN;
+                LocalDate date = LocalDate.ofEpochDay(day);
+                Entry entry = new Entry(yield, now);
+                entries.put(new Key(seriesId, date), entry);
+                if (!isRecentGap(date, entry)) {
+                    lines.append(format(seriesId, date, entry));
+                    count++;
+                }
+            }
+            if (count > 0) {
+                write(lines.toString(), count);
+            }
+        }
+    }
+
+    // True if the day is held and fresh, i.e. getYield would not go to FRED for it
+    public boolean contains(String seriesId, LocalDate date) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(new Key(seriesId, date));
+        }
+        return entry != null && isFresh(date, entry);
+    }
+
+    public boolean isOffline() {
+        return offline;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    static boolean isRecent(LocalDate date) {
+        return date.isAfter(LocalDate.now().minusDays(RECENT_DAYS + 1));
+    }
+
+    private static boolean isRecentGap(LocalDate date, Entry entry) {
+        return Double.isNaN(entry.yield()) && isRecent(date);
+    }
+
+    private boolean isFresh(LocalDate date, Entry entry) {
+        if (offline) {
+            return true;
+        }
+        long ttl = isRecentGap(date, entry) ? Math.min(ttlMillis, RECENT_GAP_TTL_MILLIS) : ttlMillis;
+        return System.currentTimeMillis() - entry.fetchedAt() <= ttl;
+    }
+
+    private static Double toYield(double yield) {
+        return Double.isNaN(yield) ? null : yield;
+    }
+
+    // Each line is series,date,yield,fetchedAt; later lines win over earlier ones for the same key
+    private void load() {
+        if (storeFile == null || !Files.exists(storeFile)) {
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(storeFile, StandardCharsets.UTF_8)) {
+            for (String line; (line = reader.readLine()) != null;) {
+                storeLines++;
+                String[] fields = line.split(",");
+                if (fields.length != 4) {
+                    continue;
+                }
+                try {
+                    double yield = fields[2].equals(MISSING) ? Double.NaN : Double.parseDouble(fields[2]);
+                    entries.put(new Key(fields[0], LocalDate.parse(fields[1])), new Entry(yield, Long.parseLong(fields[3])));
+                } catch (NumberFormatException | DateTimeParseException e) {
+                    // Skip a torn or hand-edited line rather than losing the whole store
+                }
+            }
+        } catch (IOException e) {
+            STORE_ERRORS.increment();
+            MetricsEvents.treasuryDataFailure("load", String.valueOf(storeFile), e);
+            return;
+        }
+        if (storeLines > 2 * entries.size()) {
+            compact();
+        }
+    }
+
+    // Rewrites the store with only the entries currently held; false if it couldn't be
+    private synchronized boolean compact() {
+        try {
+            Path temp = storeFile.resolveSibling(storeFile.getFileName() + ".tmp");
+            int lines = 0;
+            try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                for (Map.Entry<Key, Entry> e : entries.entrySet()) {
+                    if (isRecentGap(e.getKey().date(), e.getValue())) {
+                        continue;
+                    }
+                    writer.write(format(e.getKey().seriesId(), e.getKey().date(), e.getValue()));
+                    lines++;
+                }
+            }
+            Files.move(temp, storeFile, StandardCopyOption.REPLACE_EXISTING);
+            storeLines = lines;
+            return true;
+        } catch (IOException e) {
+            STORE_ERRORS.increment();
+            MetricsEvents.treasuryDataFailure("compact", String.valueOf(storeFile), e);
+            return false;
+        }
+    }
+
+    // Appends count lines to the store, compacting it when it has grown well past the live entries
+    private void write(String lines, int count) {
+        if (storeFile == null) {
+            return;
+        }
+        // entries already holds the new lines, so a rewrite includes them
+        if (storeLines + count > 2 * entries.size() + COMPACT_SLACK && compact()) {
+            return;
+        }
+        try {
+            if (storeFile.getParent() != null) {
+                Files.createDirectories(storeFile.getParent());
+            }
+            try (BufferedWriter writer = Files.newBufferedWriter(storeFile, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                writer.write(lines);
+            }
+            storeLines += count;
+        } catch (IOException e) {
+            STORE_ERRORS.increment();
+            MetricsEvents.treasuryDataFailure("write", String.valueOf(storeFile), e);
+        }
+    }
+
+    private static String format(String seriesId, LocalDate date, Entry entry) {
+        String yield = Double.isNaN(entry.yield()) ? MISSING : Double.toString(entry.yield());
+        return seriesId + "," + date + "," + yield + "," + entry.fetchedAt() + System.lineSeparator();
+    }
+}
@@ -0,0 +1,201 @@
+package yieldanalysis;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+
+// Read-only, memory-mapped history of daily treasury yields for every tenor.
+//
+// Days are indexed by business-day ordinal (Monday to Friday, counted from 1970-01-05), so a
+// date turns into a buffer offset with a little arithmetic and nothing has to be parsed at
+// startup. After a fixed header the file holds, for each tenor, a dense column of yields
+// (NaN where FRED had none) followed by, for each tenor, a column with the ordinal of the
+// latest observation on or before each day (-1 if there is none yet). The second set of
+// columns makes the last-available-day fallback a single read as well.
+public class TreasuryYieldStore {
+
+    private static final int MAGIC = 0x54594C44; // "TYLD"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+
+    // Epoch day of Monday 1970-01-05, business-day ordinal 0
+    private static final long ORDINAL_ANCHOR = 4;
+
+    // A history file that exists but can't be mapped; lookups then go through the yield cache
+    private static final Metrics.Counter OPEN_FAILURES = Metrics.counter("treasury.store_open_failures");
+
+    private static TreasuryYieldStore defaultStore;
+    private static boolean defaultStoreLoaded;
+
+    private final MappedByteBuffer buffer;
+    private final long firstOrdinal;
+    private final int days;
+    private final int tenors;
+
+    private TreasuryYieldStore(MappedByteBuffer buffer) throws IOException {
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a treasury yield store");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported treasury yield store version " + buffer.getInt(4));
+        }
+        this.buffer = buffer;
+        this.firstOrdinal = buffer.getLong(8);
+        this.days = buffer.getInt(16);
+        this.tenors = buffer.getInt(20);
+        if (tenors != Tenor.count() || buffer.capacity() < HEADER_BYTES + (long) days * tenors * (Double.BYTES + Integer.BYTES)) {
+            throw new IOException("Truncated or incompatible treasury yield store");
+        }
+    }
+
+    public static TreasuryYieldStore open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            return new TreasuryYieldStore(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    // Store at -Dtreasury.store, or ~/.yieldanalysis/treasury-yields.bin; null if there is none
+    public static synchronized TreasuryYieldStore getDefault() {
+        if (!defaultStoreLoaded) {
+            defaultStoreLoaded = true;
+            Path file = Paths.get(System.getProperty("treasury.store",
+                    Paths.get(System.getProperty("user.home"), ".yieldanalysis", "treasury-yields.bin").toString()));
+            if (Files.exists(file)) {
+                try {
+                    defaultStore = open(file);
+                } catch (IOException e) {
+                    OPEN_FAILURES.increment();
+                    MetricsEvents.treasuryDataFailure("open store", file.toString(), e);
+                }
+            }
+        }
+        return defaultStore;
+    }
+
+    public LocalDate getStartDate() {
+        return LocalDate.ofEpochDay(epochDay(firstOrdinal));
+    }
+
+    public LocalDate getEndDate() {
+        return LocalDate.ofEpochDay(epochDay(firstOrdinal + days - 1));
+    }
+
+    public boolean covers(LocalDate date) {
+        return !date.isBefore(getStartDate()) && ordinal(date.toEpochDay()) - firstOrdinal < days;
+    }
+
+    // Yield observed on exactly that day, or NaN
+    public double getYield(Tenor tenor, LocalDate date) {
+        long epochDay = date.toEpochDay();
+        long index = ordinal(epochDay) - firstOrdinal;
+        if (index < 0 || index >= days || epochDay(ordinal(epochDay)) != epochDay) {
+            return Double.NaN;
+        }
+        return buffer.getDouble(yieldOffset(tenor.ordinal(), (int) index));
+    }
+
+    // Latest yield observed on or before the date, at most maxLookbackDays calendar days
+    // earlier, or NaN. Weekends fall back to the Friday before without any searching.
+    public double getLatestYield(Tenor tenor, LocalDate date, int maxLookbackDays) {
+        long epochDay = date.toEpochDay();
+        long index = Math.min(ordinal(epochDay) - firstOrdinal, days - 1);
+        if (index < 0) {
+            return Double.NaN;
+        }
+        int observed = buffer.getInt(latestOffset(tenor.ordinal(), (int) index));
+        if (observed < 0 || epochDay - epochDay(firstOrdinal + observed) > maxLookbackDays) {
+            return Double.NaN;
+        }
+        return buffer.getDouble(yieldOffset(tenor.ordinal(), observed));
+    }
+
+    private int yieldOffset(int tenor, int index) {
+        return HEADER_BYTES + (tenor * days + index) * Double.BYTES;
+    }
+
+    private int latestOffset(int tenor, int index) {
+        return HEADER_BYTES + tenors * days * Double.BYTES + (tenor * days + index) * Integer.BYTES;
+    }
+
+    // Business-day ordinal of the day; Saturday and Sunday map to the Friday before
+    static long ordinal(long epochDay) {
+        long sinceAnchor = epochDay - ORDINAL_ANCHOR;
+        return Math.floorDiv(sinceAnchor, 7) * 5 + Math.min(Math.floorMod(sinceAnchor, 7), 4);
+    }
+
+    static long epochDay(long ordinal) {
+        return ORDINAL_ANCHOR + Math.floorDiv(ordinal, 5) * 7 + Math.floorMod(ordinal, 5);
+    }
+
+    // Writes every business day in the table to a new store file, replacing the old one
+    public static void write(TreasuryCurveTable table, Path file) throws IOException {
+        long first = ordinal(table.getStartDate().toEpochDay());
+        if (epochDay(first) < table.getStartDate().toEpochDay()) {
+            // The table starts on a weekend
+            first++;
+        }
+        long last = ordinal(table.getEndDate().toEpochDay());
+        int days = (int) Math.max(last - first + 1, 0);
+        int tenors = Tenor.count();
+
+        ByteBuffer out = ByteBuffer.allocate(HEADER_BYTES + days * tenors * (Double.BYTES + Integer.BYTES));
+        out.putInt(MAGIC).putInt(VERSION).putLong(first).putInt(days).putInt(tenors);
+        out.position(HEADER_BYTES);
+
+        int[] latest = new int[tenors * days];
+        for (int t = 0; t < tenors; t++) {
+            Tenor tenor = Tenor.at(t);
+            int observed = -1;
+            for (int i = 0; i < days; i++) {
+                double yield = table.getYield(tenor, LocalDate.ofEpochDay(epochDay(first + i)));
+                out.putDouble(yield);
+                if (!Double.isNaN(yield)) {
+                    observed = i;
+                }
+                latest[t * days + i] = observed;
+            }
+        }
+        for (int observed : latest) {
+            out.putInt(observed);
+        }
+        out.flip();
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        if (file.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+        }
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // Builds a store straight from FRED: java yieldanalysis.TreasuryYieldStore 1962-01-02 2024-12-31 treasury-yields.bin
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) {
+            System.err.println("Usage: TreasuryYieldStore <start yyyy-MM-dd> <end yyyy-MM-dd> <file>");
+            System.exit(1);
+        }
+        LocalDate start = LocalDate.parse(args[0]);
+        LocalDate end = LocalDate.parse(args[1]);
+        Path file = Paths.get(args[2]);
+
+        TreasuryCurveTable table = TreasuryCurvePrefetcher.getDefault().prefetch(start, end);
+        write(table, file);
+
+        TreasuryYieldStore store = open(file);
+        System.out.println("Wrote " + store.days + " business days from " + store.getStartDate() + " to " + store.getEndDate() + " to " + file);
+    }
+}
@@ -0,0 +1,138 @@
+package yieldanalysis;
+
+import java.util.Arrays;
+
+// Benchmark yield curve through the treasury points of one date. Every segment is stored as
+// a cubic y = a + b*dx + c*dx^2 + d*dx^3 whose coefficients are worked out once when the
+// curve is built, so a lookup is a segment search plus a Horner evaluation. Outside the
+// first and last point the curve is flat.
+public class YieldCurve {
+
+    public enum Interpolation {
+        LINEAR,
+        // Fritsch-Carlson style Hermite spline: smooth, but never overshoots the points
+        MONOTONE_CUBIC
+    }
+
+    private final Interpolation interpolation;
+    private final double[] times;
+    private final double[] a;
+    private final double[] b;
+    private final double[] c;
+    private final double[] d;
+
+    public YieldCurve(double[] times, double[] yields, Interpolation interpolation) {
+        if (times.length != yields.length || times.length == 0) {
+            throw new IllegalArgumentException("A yield curve needs at least one point, and as many times as yields.");
+        }
+        for (int i = 1; i < times.length; i++) {
+            if (!(times[i] > times[i - 1])) {
+                throw new IllegalArgumentException("Curve times must be strictly increasing.");
+            }
+        }
+        this.interpolation = interpolation;
+        this.times = times.clone();
+        this.a = yields.clone();
+
+        int n = times.length;
+        this.b = new double[n];
+        this.c = new double[n];
+        this.d = new double[n];
+        if (n == 1) {
+            return;
+        }
+
+        double[] h = new double[n - 1];
+        double[] slope = new double[n - 1];
+        for (int i = 0; i < n - 1; i++) {
+            h[i] = times[i + 1] - times[i];
+            slope[i] = (yields[i + 1] - yields[i]) / h[i];
+        }
+
+        if (interpolation == Interpolation.LINEAR) {
+            System.arraycopy(slope, 0, b, 0, n - 1);
+            return;
+        }
+
+        // Tangents at each point: one-sided at the ends, a weighted harmonic mean of the
+        // neighbouring slopes inside, and flat wherever the data turns
+        double[] m = new double[n];
+        m[0] = slope[0];
+        m[n - 1] = slope[n - 2];
+        for (int i = 1; i < n - 1; i++) {
+            if (slope[i - 1] * slope[i] <= 0) {
+                m[i] = 0.0;
+            } else {
+                m[i] = 3 * (h[i - 1] + h[i]) / ((2 * h[i] + h[i - 1]) / slope[i - 1] + (h[i] + 2 * h[i - 1]) / slope[i]);
+            }
+        }
+
+        for (int i = 0; i < n - 1; i++) {
+            b[i] = m[i];
+            c[i] = (3 * slope[i] - 2 * m[i] - m[i + 1]) / h[i];
+            d[i] = (m[i] + m[i + 1] - 2 * slope[i]) / (h[i] * h[i]);
+        }
+    }
+
+    // Curve through the DGS points (indexed by Tenor.ordinal()); tenors without a yield are left out
+    public static YieldCurve fromTreasuryYields(double[] tenorYields, Interpolation interpolation) {
+        double[] times = new double[Tenor.count()];
+        double[] yields = new double[Tenor.count()];
+        int points = 0;
+        for (int i = 0; i < Tenor.count(); i++) {
+            if (!Double.isNaN(tenorYields[i])) {
+                times[points] = Tenor.at(i).getYears();
+                yields[points] = tenorYields[i];
+                points++;
+            }
+        }
+        if (points == 0) {
+            throw new IllegalArgumentException("No treasury yields to build a curve from.");
+        }
+        return new YieldCurve(Arrays.copyOf(times, points), Arrays.copyOf(yields, points), interpolation);
+    }
+
+    public Interpolation getInterpolation() {
+        return interpolation;
+    }
+
+    public double yieldAt(double years) {
+        int last = times.length - 1;
+        if (years <= times[0]) {
+            return a[0];
+        }
+        if (years >= times[last]) {
+            return a[last];
+        }
+        int i = segment(years);
+        double dx = years - times[i];
+        return a[i] + dx * (b[i] + dx * (c[i] + dx * d[i]));
+    }
+
+    public double[] yieldsAt(double[] maturities) {
+        double[] yields = new double[maturities.length];
+        yieldsAt(maturities, yields);
+        return yields;
+    }
+
+    public void yieldsAt(double[] maturities, double[] yields) {
+        for (int i = 0; i < maturities.length; i++) {
+            yields[i] = yieldAt(maturities[i]);
+        }
+    }
+
+    // Index of the point starting the segment that holds years, for times[0] < years < times[last]
+    private int segment(double years) {
+        int low = 0;
+        int high = times.length - 1;
+        while (high - low > 1) {
+            int mid = (low + high) >>> 1;
+            if (times[mid] <= years) {
+                low = mid;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,27 @@
+package yieldanalysis;
+
+// Strategy for turning a price into a yield to maturity. Bond and BondPortfolio use
+// Bond.getYieldSolver(), which can be swapped with Bond.setYieldSolver.
+public interface YieldSolver {
+
+    // Starting point used when there is no previous yield to warm-start from
+    double NO_GUESS = Double.NaN;
+
+    // price is the dirty price when firstPeriod < 1 (settlement between coupon dates)
+    void solve(double faceValue, double couponRate, int couponFrequency, int n, double firstPeriod, double price, double guess, SolverResult result);
+
+    default void solve(double faceValue, double couponRate, int couponFrequency, int n, double price, double guess, SolverResult result) {
+        solve(faceValue, couponRate, couponFrequency, n, 1.0, price, guess, result);
+    }
+
+    default void solve(CashFlowSchedule schedule, double dirtyPrice, double guess, SolverResult result) {
+        solve(schedule.getFaceValue(), schedule.getCouponRate(), schedule.getCouponFrequency(), schedule.size(),
+                schedule.getFirstPeriod(), dirtyPrice, guess, result);
+    }
+
+    default double solve(double faceValue, double couponRate, int couponFrequency, int n, double price) {
+        SolverResult result = new SolverResult();
+        solve(faceValue, couponRate, couponFrequency, n, price, NO_GUESS, result);
+        return result.getYield();
+    }
+}
@@ -0,0 +1,78 @@
+package yieldanalysis;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Scalar against Vector API batch pricing: a book of bonds at their own yields, and one bond over
+// the chart's yield grid. "default" is whatever BatchPricingKernel.getDefault() picks, which is
+// the vector kernel since the fork gets --add-modules jdk.incubator.vector.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class BatchPricingBenchmark {
+
+    private static final int BONDS = 10_000;
+
+    @Param({"scalar", "default"})
+    String kernelName;
+
+    private BatchPricingKernel kernel;
+
+    private final double[] faceValue = new double[BONDS];
+    private final double[] couponRate = new double[BONDS];
+    private final int[] couponFrequency = new int[BONDS];
+    private final int[] periods = new int[BONDS];
+    private final double[] firstPeriod = new double[BONDS];
+    private final double[] yields = new double[BONDS];
+    private final double[] prices = new double[BONDS];
+    private final double[] derivatives = new double[BONDS];
+
+    private double[] grid;
+    private double[] gridPrices;
+
+    @Setup
+    public void setUp() {
+        kernel = kernelName.equals("scalar") ? BatchPricingKernel.scalar() : BatchPricingKernel.getDefault();
+        System.out.println("Kernel: " + kernel.getName());
+
+        Random random = new Random(42);
+        int[] frequencies = {1, 2, 4, 12};
+        for (int j = 0; j < BONDS; j++) {
+            faceValue[j] = 1000;
+            couponRate[j] = 0.01 + random.nextInt(80) * 0.001;
+            couponFrequency[j] = frequencies[random.nextInt(frequencies.length)];
+            periods[j] = 1 + random.nextInt(30 * couponFrequency[j]);
+            firstPeriod[j] = random.nextDouble();
+            yields[j] = 0.005 + random.nextDouble() * 0.08;
+        }
+        grid = PriceCurveEngine.grid(0.052, 2, PriceCurveEngine.DEFAULT_POINTS);
+        gridPrices = new double[grid.length];
+    }
+
+    @Benchmark
+    public double[] priceBonds() {
+        kernel.priceBonds(faceValue, couponRate, couponFrequency, periods, firstPeriod, yields, prices, derivatives, BONDS);
+        return derivatives;
+    }
+
+    @Benchmark
+    public double[] priceYieldGrid() {
+        kernel.priceYields(1000, 0.045, 2, 20, 0.6, grid, gridPrices, null, grid.length);
+        return gridPrices;
+    }
+}
@@ -0,0 +1,51 @@
+package yieldanalysis;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Repricing one bond over the chart's yield grid, and handing the result to the long-lived
+// chart (dataset swap, axis ranges and change events; nothing is painted)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true", "--add-modules=jdk.incubator.vector"})
+public class ChartDatasetBenchmark {
+
+    private static final LocalDate SETTLEMENT = LocalDate.of(2024, 1, 2);
+
+    private Bond bond;
+    private PriceCurve curve;
+    private PriceYieldChartPanel chart;
+
+    @Setup
+    public void setUp() {
+        StubMarketData.install(SETTLEMENT);
+        bond = new Bond(1000, 0.045, SETTLEMENT.plusYears(10), 2, SETTLEMENT, 0.052, false);
+        curve = PriceCurveEngine.reprice(bond);
+        chart = new PriceYieldChartPanel();
+    }
+
+    @Benchmark
+    public PriceCurve repriceGrid() {
+        return PriceCurveEngine.reprice(bond);
+    }
+
+    @Benchmark
+    public PriceCurve updateChart() {
+        chart.setPriceCurve(curve);
+        return chart.getPriceCurve();
+    }
+}
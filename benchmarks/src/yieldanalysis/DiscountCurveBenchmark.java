@@ -0,0 +1,77 @@
+package yieldanalysis;
+
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Bootstrapping a date's discount curve from the par curve, single lookups off its monthly
+// grid, and a book of schedules priced off the curve, as SpreadEngine and the lattice use it.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DiscountCurveBenchmark {
+
+    private static final LocalDate SETTLEMENT = LocalDate.of(2024, 1, 2);
+    private static final int BONDS = 1_000;
+    private static final int LOOKUPS = 4_096;
+
+    private YieldCurve parCurve;
+    private DiscountCurve curve;
+    private final double[] times = new double[LOOKUPS];
+    private final CashFlowSchedule[] schedules = new CashFlowSchedule[BONDS];
+
+    @Setup
+    public void setUp() {
+        StubMarketData.install(SETTLEMENT);
+        parCurve = TreasuryMarketData.getDefault().getCurve(SETTLEMENT);
+        curve = TreasuryMarketData.getDefault().getDiscountCurve(SETTLEMENT);
+
+        Random random = new Random(42);
+        for (int i = 0; i < LOOKUPS; i++) {
+            times[i] = random.nextDouble() * 30;
+        }
+        int[] frequencies = {1, 2, 4, 12};
+        for (int i = 0; i < BONDS; i++) {
+            schedules[i] = new CashFlowSchedule(1000, 0.01 + random.nextInt(80) * 0.001,
+                    SETTLEMENT.plusMonths(1 + random.nextInt(359)).plusDays(random.nextInt(28)),
+                    frequencies[random.nextInt(frequencies.length)], SETTLEMENT, CashFlowSchedule.DayCount.ACT_ACT);
+        }
+    }
+
+    @Benchmark
+    public DiscountCurve bootstrap() {
+        return DiscountCurve.bootstrap(parCurve);
+    }
+
+    @Benchmark
+    public double discountFactors() {
+        double sum = 0.0;
+        for (double t : times) {
+            sum += curve.discountFactor(t);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double priceSchedules() {
+        double sum = 0.0;
+        for (CashFlowSchedule schedule : schedules) {
+            sum += schedule.dirtyPrice(curve);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,89 @@
+package yieldanalysis;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+// Streaming StAX parsing of FRED observation responses against the DOM path Bond used to take:
+// read the body line by line into a StringBuilder, turn it back into bytes and build a DOM.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FredParserBenchmark {
+
+    // 1 is a single-day lookup; 2,600 is roughly ten years of daily observations
+    @Param({"1", "2600"})
+    int observations;
+
+    private byte[] response;
+
+    @Setup
+    public void setUp() {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"utf-8\" ?>\n")
+                .append("<observations realtime_start=\"2024-01-01\" realtime_end=\"2024-01-01\" units=\"lin\" count=\"")
+                .append(observations).append("\">\n");
+        LocalDate date = LocalDate.of(2014, 1, 1);
+        for (int i = 0; i < observations; i++) {
+            String value = i % 20 == 19 ? "." : String.format("%.2f", 1.5 + (i % 300) / 100.0);
+            xml.append("  <observation realtime_start=\"2024-01-01\" realtime_end=\"2024-01-01\" date=\"")
+                    .append(date.plusDays(i)).append("\" value=\"").append(value).append("\"/>\n");
+        }
+        response = xml.append("</observations>\n").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public void stax(Blackhole blackhole) throws IOException {
+        FredObservations parsed = new FredObservations();
+        FredObservationParser.parse(new ByteArrayInputStream(response), parsed);
+        blackhole.consume(parsed.size() == 0 ? 0.0 : parsed.yieldAt(parsed.size() - 1));
+    }
+
+    @Benchmark
+    public void dom(Blackhole blackhole) throws Exception {
+        StringBuilder xmlText = new StringBuilder();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(response), "UTF-8"))) {
+            for (String line; (line = reader.readLine()) != null;) {
+                xmlText.append(line);
+            }
+        }
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        DocumentBuilder builder = factory.newDocumentBuilder();
+        Document doc = builder.parse(new ByteArrayInputStream(xmlText.toString().getBytes("UTF-8")));
+
+        NodeList nodes = doc.getElementsByTagName("observation");
+        double last = 0.0;
+        for (int i = 0; i < nodes.getLength(); i++) {
+            String value = ((Element) nodes.item(i)).getAttribute("value");
+            if (!value.equals(".")) {
+                last = Double.parseDouble(value) / 100;
+            }
+        }
+        blackhole.consume(last);
+    }
+}
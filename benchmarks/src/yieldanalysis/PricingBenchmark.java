@@ -0,0 +1,89 @@
+package yieldanalysis;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Single-bond hot paths across maturities and coupon frequencies, on the CashFlowSchedule
+// Bond itself builds: price from yield, yield from price (cold and warm-started), the fused
+// duration/convexity pass with the broken first period, and the full Bond constructor against
+// stubbed treasury data. Maturities fall between coupon dates, as they usually do.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PricingBenchmark {
+
+    private static final LocalDate SETTLEMENT = LocalDate.of(2024, 1, 2);
+
+    @Param({"2", "10", "30"})
+    int years;
+
+    @Param({"1", "2", "12"})
+    int frequency;
+
+    private final double faceValue = 1000;
+    private final double couponRate = 0.045;
+    private final double yield = 0.052;
+
+    private LocalDate maturity;
+    private CashFlowSchedule schedule;
+    private double price;
+    private double dirtyPrice;
+    private double movedDirtyPrice;
+
+    private final SolverResult solverResult = new SolverResult();
+    private final AnalyticsResult analytics = new AnalyticsResult();
+
+    @Setup
+    public void setUp() {
+        StubMarketData.install(SETTLEMENT);
+        maturity = SETTLEMENT.plusYears(years).plusDays(17);
+        schedule = new CashFlowSchedule(faceValue, couponRate, maturity, frequency, SETTLEMENT, CashFlowSchedule.DayCount.ACT_ACT);
+        price = schedule.cleanPrice(yield);
+        dirtyPrice = schedule.dirtyPrice(yield);
+        movedDirtyPrice = dirtyPrice + 0.25;
+    }
+
+    @Benchmark
+    public double priceFromYield() {
+        return schedule.dirtyPrice(yield);
+    }
+
+    @Benchmark
+    public double yieldFromPrice() {
+        Bond.getYieldSolver().solve(schedule, dirtyPrice, YieldSolver.NO_GUESS, solverResult);
+        return solverResult.getYield();
+    }
+
+    // Re-solving after a quarter point move, starting from the previous yield
+    @Benchmark
+    public double yieldFromPriceWarm() {
+        Bond.getYieldSolver().solve(schedule, movedDirtyPrice, yield, solverResult);
+        return solverResult.getYield();
+    }
+
+    @Benchmark
+    public double durationAndConvexity() {
+        AnalyticsKernel.calculate(faceValue, couponRate, frequency, schedule.size(), schedule.getFirstPeriod(), yield, analytics);
+        return analytics.getModifiedDuration() + analytics.getConvexity();
+    }
+
+    @Benchmark
+    public Bond newBondFromPrice() {
+        return new Bond(faceValue, couponRate, maturity, frequency, SETTLEMENT, price, true);
+    }
+}
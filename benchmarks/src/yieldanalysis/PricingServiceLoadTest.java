@@ -0,0 +1,167 @@
+package yieldanalysis;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+// Fixed-rate load test for PricingService. Each of a number of keep-alive connections sends
+// its share of the requests on a fixed schedule, and every latency is measured from the moment
+// the request was due rather than when it was actually sent, so a stalled server can't hide
+// its queueing delay. The first fifth of the run is warm-up and left out of the percentiles.
+// The client is a bare HTTP/1.1 writer and reader so that it costs far less than the server.
+//
+//   java -cp benchmarks/target/benchmarks.jar yieldanalysis.PricingServiceLoadTest [rate] [seconds] [host:port] [connections]
+//
+// Without host:port the service is started in this JVM against stubbed treasury data.
+public final class PricingServiceLoadTest {
+
+    private static final LocalDate SETTLEMENT = LocalDate.of(2024, 1, 2);
+
+    // Distinct bonds; each is asked for its risk and for its yield
+    private static final int DISTINCT_BONDS = 1_000;
+
+    private PricingServiceLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int rate = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        String target = args.length > 2 ? args[2] : null;
+        int connections = args.length > 3 ? Integer.parseInt(args[3]) : 64;
+
+        PricingService service = null;
+        if (target == null) {
+            StubMarketData.install(SETTLEMENT);
+            PricingService.useNoDelay();
+            service = new PricingService(new InetSocketAddress("localhost", 0),
+                    new BondAnalyticsCache(TreasuryMarketData.getDefault(), 10_000));
+            service.start();
+            target = "localhost:" + service.getPort();
+        }
+        String host = target.substring(0, target.lastIndexOf(':'));
+        int port = Integer.parseInt(target.substring(target.lastIndexOf(':') + 1));
+
+        byte[][] requests = new byte[DISTINCT_BONDS * 2][];
+        for (int i = 0; i < DISTINCT_BONDS; i++) {
+            String terms = "{\"faceValue\":1000,\"couponRate\":" + (0.02 + (i % 60) * 0.001)
+                    + ",\"maturityDate\":\"" + SETTLEMENT.plusMonths(12 + i % 348) + "\",\"couponFrequency\":2"
+                    + ",\"settlementDate\":\"" + SETTLEMENT + "\",\"price\":" + (900 + i % 200) + "}";
+            requests[2 * i] = post(host, "/risk", terms);
+            requests[2 * i + 1] = post(host, "/yield", terms);
+        }
+
+        int total = rate * seconds;
+        long[] latencies = new long[total];
+        AtomicInteger failures = new AtomicInteger();
+        long interval = 1_000_000_000L / rate;
+        long start = System.nanoTime() + 100_000_000L;
+
+        // Connection c sends requests c, c + connections, c + 2 * connections, ...
+        Thread[] threads = new Thread[connections];
+        for (int c = 0; c < connections; c++) {
+            int first = c;
+            String threadHost = host;
+            threads[c] = new Thread(() -> {
+                try (Socket socket = new Socket(threadHost, port)) {
+                    socket.setTcpNoDelay(true);
+                    OutputStream out = socket.getOutputStream();
+                    InputStream in = new BufferedInputStream(socket.getInputStream());
+                    for (int i = first; i < total; i += connections) {
+                        long due = start + i * interval;
+                        long wait;
+                        while ((wait = due - System.nanoTime()) > 0) {
+                            LockSupport.parkNanos(wait);
+                        }
+                        out.write(requests[i % requests.length]);
+                        out.flush();
+                        if (readResponse(in) != 200) {
+                            failures.incrementAndGet();
+                        }
+                        latencies[i] = System.nanoTime() - due;
+                    }
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    failures.incrementAndGet();
+                }
+            }, "load-test-" + c);
+            threads[c].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        long[] measured = Arrays.copyOfRange(latencies, total / 5, total);
+        Arrays.sort(measured);
+        System.out.println("Sent " + total + " requests at " + rate + "/s over " + connections + " connections, completed at "
+                + Math.round(total / (elapsed / 1e9)) + "/s, " + failures.get() + " failed");
+        System.out.printf("Latency (ms): p50 %.3f  p90 %.3f  p99 %.3f  p99.9 %.3f  max %.3f%n",
+                percentile(measured, 0.50), percentile(measured, 0.90), percentile(measured, 0.99),
+                percentile(measured, 0.999), measured[measured.length - 1] / 1e6);
+
+        if (service != null) {
+            service.stop(0);
+        }
+    }
+
+    private static byte[] post(String host, String path, String body) {
+        byte[] content = body.getBytes(StandardCharsets.UTF_8);
+        String head = "POST " + path + " HTTP/1.1\r\nHost: " + host + "\r\nContent-Type: application/json\r\n"
+                + "Content-Length: " + content.length + "\r\n\r\n";
+        byte[] headBytes = head.getBytes(StandardCharsets.US_ASCII);
+        byte[] request = Arrays.copyOf(headBytes, headBytes.length + content.length);
+        System.arraycopy(content, 0, request, headBytes.length, content.length);
+        return request;
+    }
+
+    // Reads one response off the connection and returns its status code
+    private static int readResponse(InputStream in) throws IOException {
+        String statusLine = readLine(in);
+        int status = Integer.parseInt(statusLine.substring(9, 12));
+        int length = 0;
+        String line;
+        while (!(line = readLine(in)).isEmpty()) {
+            if (line.regionMatches(true, 0, "Content-Length:", 0, 15)) {
+                length = Integer.parseInt(line.substring(15).trim());
+            }
+        }
+        while (length > 0) {
+            long skipped = in.skip(length);
+            if (skipped <= 0) {
+                if (in.read() < 0) {
+                    throw new IOException("Connection closed in the middle of a response");
+                }
+                skipped = 1;
+            }
+            length -= skipped;
+        }
+        return status;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder(64);
+        int c;
+        while ((c = in.read()) != '\n') {
+            if (c < 0) {
+                throw new IOException("Connection closed in the middle of a response");
+            }
+            if (c != '\r') {
+                line.append((char) c);
+            }
+        }
+        return line.toString();
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        int index = (int) Math.min(sorted.length - 1, Math.round(fraction * (sorted.length - 1)));
+        return sorted[index] / 1e6;
+    }
+}
@@ -0,0 +1,213 @@
+package yieldanalysis;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Local stand-in for the FRED series/observations endpoint. It replays FRED's XML for the
+// StubMarketData curve: every weekday of the requested range has an observation, weekends
+// come back as "." like FRED's own gaps. setAvailable(false) makes it answer 503, as FRED
+// does when it is down, and setPublishedThrough holds back later days as FRED does before
+// its afternoon update. Point a FredClient at getBaseUrl(), or run anything with
+// -Dfred.baseUrl set to it.
+//
+//   java -cp benchmarks/target/benchmarks.jar yieldanalysis.StubFredServer
+//
+// runs TreasuryYieldCache through a miss, a hit, a stale entry served while the server is
+// down, offline mode, days not yet published and store compaction, and fails on the first check that doesn't hold.
+final class StubFredServer {
+
+    private static final LocalDate SETTLEMENT = LocalDate.of(2024, 1, 2);
+
+    private final HttpServer server;
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile boolean available = true;
+    private volatile LocalDate publishedThrough;
+
+    StubFredServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/fred/series/observations", this::observations);
+        server.start();
+    }
+
+    String getBaseUrl() {
+        return "http://localhost:" + server.getAddress().getPort() + "/fred";
+    }
+
+    void setAvailable(boolean available) {
+        this.available = available;
+    }
+
+    // Days after the date come back without a value; null publishes everything
+    void setPublishedThrough(LocalDate publishedThrough) {
+        this.publishedThrough = publishedThrough;
+    }
+
+    // Requests answered (or refused) so far
+    int requests() {
+        return requests.get();
+    }
+
+    void stop() {
+        server.stop(0);
+    }
+
+    // The yield the server reports for the series on the day, or null on weekends
+    static Double observed(String seriesId, LocalDate date) {
+        if (date.getDayOfWeek() == DayOfWeek.SATURDAY || date.getDayOfWeek() == DayOfWeek.SUNDAY) {
+            return null;
+        }
+        for (int i = 0; i < Tenor.count(); i++) {
+            if (Tenor.at(i).getSeriesId().equals(seriesId)) {
+                // A small drift by day so that different dates are told apart
+                return StubMarketData.CURVE[i] + (date.getDayOfMonth() % 10) * 0.0001;
+            }
+        }
+        return null;
+    }
+
+    private void observations(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try {
+            if (!available) {
+                respond(exchange, 503, "Service Unavailable");
+                return;
+            }
+            Map<String, String> query = query(exchange.getRequestURI());
+            String seriesId = query.get("series_id");
+            LocalDate start;
+            LocalDate end;
+            try {
+                start = LocalDate.parse(query.get("observation_start"));
+                end = LocalDate.parse(query.get("observation_end"));
+            } catch (RuntimeException e) {
+                respond(exchange, 400, "<error code=\"400\" message=\"Bad Request.\"/>");
+                return;
+            }
+
+            StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"utf-8\" ?>\n")
+                    .append("<observations realtime_start=\"").append(end).append("\" realtime_end=\"").append(end)
+                    .append("\" units=\"lin\" count=\"").append(end.toEpochDay() - start.toEpochDay() + 1).append("\">\n");
+            LocalDate published = publishedThrough;
+            for (LocalDate date = start; !date.isAfter(end); date = date.plusDays(1)) {
+                Double yield = published != null && date.isAfter(published) ? null : observed(seriesId, date);
+                String value = yield == null ? "." : String.format(Locale.ROOT, "%.2f", yield * 100);
+                xml.append("  <observation realtime_start=\"").append(end).append("\" realtime_end=\"").append(end)
+                        .append("\" date=\"").append(date).append("\" value=\"").append(value).append("\"/>\n");
+            }
+            respond(exchange, 200, xml.append("</observations>\n").toString());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static Map<String, String> query(URI uri) {
+        Map<String, String> query = new HashMap<>();
+        if (uri.getRawQuery() != null) {
+            for (String pair : uri.getRawQuery().split("&")) {
+                int split = pair.indexOf('=');
+                if (split > 0) {
+                    query.put(pair.substring(0, split), pair.substring(split + 1));
+                }
+            }
+        }
+        return query;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/xml; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        StubFredServer server = new StubFredServer();
+        Path store = Files.createTempFile("treasury-yields", ".csv");
+        try {
+            FredClient client = new FredClient(server.getBaseUrl(), "");
+            String series = Tenor.at(7).getSeriesId();
+            LocalDate saturday = LocalDate.of(2024, 1, 6);
+            Metrics.Counter stale = Metrics.counter("yield_cache.stale_served");
+
+            TreasuryYieldCache cache = new TreasuryYieldCache(client, 1_000, Duration.ofMillis(500), store, false);
+            check(close(cache.getYield(series, SETTLEMENT), observed(series, SETTLEMENT)) && server.requests() == 1,
+                    "A miss is fetched from FRED");
+            check(close(cache.getYield(series, SETTLEMENT), observed(series, SETTLEMENT)) && server.requests() == 1,
+                    "A hit is answered from the cache");
+            check(cache.getYield(series, saturday) == null && cache.getYield(series, saturday) == null && server.requests() == 2,
+                    "A day without an observation is fetched once");
+
+            Thread.sleep(600);
+            server.setAvailable(false);
+            long staleBefore = stale.get();
+            Double served = cache.getYield(series, SETTLEMENT);
+            check(close(served, observed(series, SETTLEMENT)) && server.requests() == 3 && stale.get() == staleBefore + 1,
+                    "An expired entry is served while FRED is down");
+            server.setAvailable(true);
+            check(close(cache.getYield(series, SETTLEMENT), observed(series, SETTLEMENT)) && server.requests() == 4,
+                    "An expired entry is refreshed once FRED is back");
+
+            TreasuryYieldCache offline = new TreasuryYieldCache(client, 1_000, Duration.ofMillis(500), store, true);
+            check(close(offline.getYield(series, SETTLEMENT), observed(series, SETTLEMENT)) && server.requests() == 4,
+                    "Offline, the stored entry is served without a request");
+            check(offline.getYield(series, SETTLEMENT.plusDays(1)) == null && server.requests() == 4,
+                    "Offline, a miss is not fetched");
+
+            TreasuryCurvePrefetcher prefetcher = new TreasuryCurvePrefetcher(client);
+            TreasuryYieldCache prefetched = new TreasuryYieldCache(client, 1_000, Duration.ofDays(1), null, false);
+            prefetcher.prefetch(SETTLEMENT.minusDays(9), SETTLEMENT, prefetched);
+            int afterPrefetch = server.requests();
+            check(close(prefetched.getYield(series, SETTLEMENT.minusDays(1)), observed(series, SETTLEMENT.minusDays(1)))
+                    && server.requests() == afterPrefetch, "A prefetched range is answered from the cache");
+
+            LocalDate today = LocalDate.now();
+            server.setPublishedThrough(today.minusDays(1));
+            TreasuryYieldCache recent = new TreasuryYieldCache(client, 1_000, Duration.ofDays(7), store, false);
+            prefetcher.prefetch(today.minusDays(9), today, recent);
+            server.setPublishedThrough(null);
+            check(Files.lines(store).noneMatch(line -> line.startsWith(series + "," + today + ","))
+                    && Files.lines(store).anyMatch(line -> line.startsWith(series + "," + today.minusDays(9) + ",")),
+                    "A day FRED hasn't published yet is not written to the store");
+
+            // The same day over and over, so every line but the last is superseded
+            for (int i = 0; i < 3 * TreasuryYieldCache.COMPACT_SLACK; i++) {
+                cache.put(series, SETTLEMENT, 0.05);
+            }
+            long lines = Files.lines(store).count();
+            check(lines <= 2 * cache.size() + TreasuryYieldCache.COMPACT_SLACK, "The store is compacted as it grows (" + lines + " lines)");
+
+            System.out.println("All checks passed; " + server.requests() + " requests to the stub");
+        } finally {
+            server.stop();
+            Files.deleteIfExists(store);
+        }
+    }
+
+    private static boolean close(Double actual, Double expected) {
+        return actual != null && expected != null && Math.abs(actual - expected) < 1e-9;
+    }
+
+    private static void check(boolean condition, String what) {
+        if (!condition) {
+            throw new IllegalStateException("Failed: " + what);
+        }
+        System.out.println("ok  " + what);
+    }
+}
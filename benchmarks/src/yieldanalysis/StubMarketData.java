@@ -0,0 +1,22 @@
+package yieldanalysis;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+// Offline, pre-filled treasury data so benchmarks never reach FRED
+final class StubMarketData {
+
+    static final double[] CURVE = {0.0531, 0.0538, 0.0533, 0.0504, 0.0473, 0.0455, 0.0437, 0.0433, 0.0460, 0.0448};
+
+    private StubMarketData() {
+    }
+
+    static void install(LocalDate settlementDate) {
+        TreasuryYieldCache cache = new TreasuryYieldCache(new FredClient("http://localhost:9/fred", ""), 1_000,
+                Duration.ofDays(365), null, true);
+        for (int i = 0; i < Tenor.count(); i++) {
+            cache.put(Tenor.at(i).getSeriesId(), settlementDate, CURVE[i]);
+        }
+        TreasuryMarketData.setDefault(new TreasuryMarketData(null, cache, null));
+    }
+}